@@ -30,17 +30,60 @@ export const register = (userData) => api.post('/auth/register', userData);
 export const login = (credentials) => api.post('/auth/login', credentials);
 
 // Posts API
-export const getFeed = (page = 0, size = 10) => 
-  api.get(`/posts?page=${page}&size=${size}&sort=createdAt,desc`);
+// comments: number of newest comments embedded in each post as commentPreviews
+export const getFeed = (cursor = null, size = 10, comments = 0) => 
+  api.get('/posts', { params: { cursor, size, comments } });
 export const createPost = (postData) => api.post('/posts', postData);
+// Images go as multipart parts instead of base64 strings inside the JSON body
+export const createPostWithMedia = (formData) =>
+  api.post('/posts', formData, { headers: { 'Content-Type': 'multipart/form-data' } });
 export const getPost = (postId) => api.get(`/posts/${postId}`);
+export const getTrending = (limit = 10) => api.get('/posts/trending', { params: { limit } });
 export const deletePost = (postId) => api.delete(`/posts/${postId}`);
 export const likePost = (postId) => api.post(`/posts/${postId}/like`);
 export const unlikePost = (postId) => api.delete(`/posts/${postId}/like`);
+// Many posts in one request; missing and hidden posts are left out
+export const getPostsByIds = (ids) =>
+  api.get('/posts/batch', { params: { ids: ids.join(',') } });
+// likes: [{ postId, liked }]; the response has one result per item
+export const applyLikes = (likes) => api.post('/posts/batch/likes', { likes });
+
+// Live feed over Server-Sent Events. fetch is used instead of EventSource so the
+// bearer token goes in a header rather than the URL. Calls onEvent(name, data)
+// for each event and resolves when the server ends the stream.
+export const streamFeed = async (onEvent, signal) => {
+  const token = localStorage.getItem('token');
+  const response = await fetch(`${API_URL}/posts/stream`, {
+    headers: { Accept: 'text/event-stream', Authorization: `Bearer ${token}` },
+    signal,
+  });
+  if (!response.ok) {
+    throw new Error(`Stream failed with status ${response.status}`);
+  }
+  const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+  let buffered = '';
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) return;
+    buffered += value;
+    const messages = buffered.split('\n\n');
+    buffered = messages.pop();
+    messages.forEach((message) => {
+      let name = 'message';
+      const data = [];
+      message.split('\n').forEach((line) => {
+        if (line.startsWith('event:')) name = line.slice(6).trim();
+        else if (line.startsWith('data:')) data.push(line.slice(5));
+      });
+      // Lines starting with ':' are heartbeats and carry no data
+      if (data.length) onEvent(name, JSON.parse(data.join('\n')));
+    });
+  }
+};
 
 // Comments API
-export const getComments = (postId, page = 0, size = 10) => 
-  api.get(`/posts/${postId}/comments?page=${page}&size=${size}&sort=createdAt,desc`);
+export const getComments = (postId, cursor = null, size = 10) => 
+  api.get(`/posts/${postId}/comments`, { params: { cursor, size } });
 export const createComment = (postId, commentData) => 
   api.post(`/posts/${postId}/comments`, commentData);
 export const deleteComment = (postId, commentId) => 
@@ -48,7 +91,25 @@ export const deleteComment = (postId, commentId) =>
 
 // User API
 export const getUserProfile = (userId) => api.get(`/users/${userId}`);
+export const getSuggestions = (limit = 10) => api.get('/users/suggestions', { params: { limit } });
 export const followUser = (userId) => api.post(`/users/${userId}/follow`);
 export const unfollowUser = (userId) => api.post(`/users/${userId}/unfollow`);
+export const getFollowers = (userId, cursor = null, size = 20) => 
+  api.get(`/users/${userId}/followers`, { params: { cursor, size } });
+export const getFollowing = (userId, cursor = null, size = 20) => 
+  api.get(`/users/${userId}/following`, { params: { cursor, size } });
+
+// Notifications API
+export const getUnreadNotifications = (cursor = null, size = 20) =>
+  api.get('/notifications/unread', { params: { cursor, size } });
+export const getUnreadNotificationCount = () => api.get('/notifications/unread/count');
+// ids: notifications to mark; omit to mark all. The response has the new unreadCount
+export const markNotificationsRead = (ids) => api.post('/notifications/read', ids ? { ids } : {});
+
+// Search API
+export const searchPosts = (q, cursor = null, size = 10) => 
+  api.get('/search/posts', { params: { q, cursor, size } });
+export const searchUsers = (q, cursor = null, size = 10) => 
+  api.get('/search/users', { params: { q, cursor, size } });
 
 export default api;
\ No newline at end of file
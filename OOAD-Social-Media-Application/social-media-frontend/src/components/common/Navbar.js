@@ -1,7 +1,8 @@
 // src/components/common/Navbar.js
-import React, { useContext } from 'react';
+import React, { useContext, useEffect, useState } from 'react';
 import { Link as RouterLink, useNavigate } from 'react-router-dom';
 import { AuthContext } from '../../context/AuthContext';
+import { getUnreadNotifications, getUnreadNotificationCount, markNotificationsRead } from '../../api';
 import {
   AppBar,
   Box,
@@ -12,6 +13,7 @@ import {
   Avatar,
   Menu,
   MenuItem,
+  Badge,
 } from '@mui/material';
 import { Home, Add, Notifications, AccountCircle } from '@mui/icons-material';
 
@@ -19,6 +21,50 @@ const Navbar = () => {
   const { currentUser, logout } = useContext(AuthContext);
   const navigate = useNavigate();
   const [anchorEl, setAnchorEl] = React.useState(null);
+  const [notificationAnchorEl, setNotificationAnchorEl] = useState(null);
+  const [notifications, setNotifications] = useState([]);
+  const [unreadCount, setUnreadCount] = useState(0);
+
+  // The count is a single key lookup on the server, so polling it is cheap
+  useEffect(() => {
+    if (!currentUser) return undefined;
+    const refresh = () => getUnreadNotificationCount()
+      .then((response) => setUnreadCount(response.data.unreadCount))
+      .catch((err) => console.error('Error fetching notification count:', err));
+    refresh();
+    const timer = setInterval(refresh, 60000);
+    return () => clearInterval(timer);
+  }, [currentUser]);
+
+  const handleNotificationsOpen = async (event) => {
+    setNotificationAnchorEl(event.currentTarget);
+    try {
+      const response = await getUnreadNotifications();
+      setNotifications(response.data.content || []);
+    } catch (err) {
+      console.error('Error fetching notifications:', err);
+    }
+  };
+
+  const handleMarkAllRead = async () => {
+    try {
+      const response = await markNotificationsRead();
+      setUnreadCount(response.data.unreadCount);
+      setNotifications([]);
+    } catch (err) {
+      console.error('Error marking notifications read:', err);
+    }
+    setNotificationAnchorEl(null);
+  };
+
+  const describe = (notification) => {
+    const name = notification.lastActor ? notification.lastActor.username : 'Someone';
+    const others = notification.actorCount - 1;
+    const who = others > 0 ? `${name} and ${others} ${others === 1 ? 'other' : 'others'}` : name;
+    if (notification.type === 'LIKE') return `${who} liked your post`;
+    if (notification.type === 'COMMENT') return `${who} commented on your post`;
+    return `${who} followed you`;
+  };
 
   const handleMenu = (event) => {
     setAnchorEl(event.currentTarget);
@@ -56,9 +102,29 @@ const Navbar = () => {
             <IconButton color="inherit">
               <Add />
             </IconButton>
-            <IconButton color="inherit">
-              <Notifications />
+            <IconButton color="inherit" onClick={handleNotificationsOpen}>
+              <Badge badgeContent={unreadCount} color="error">
+                <Notifications />
+              </Badge>
             </IconButton>
+            <Menu
+              anchorEl={notificationAnchorEl}
+              open={Boolean(notificationAnchorEl)}
+              onClose={() => setNotificationAnchorEl(null)}
+            >
+              {notifications.length === 0 ? (
+                <MenuItem disabled>No new notifications</MenuItem>
+              ) : (
+                notifications.map((notification) => (
+                  <MenuItem key={notification.id} onClick={() => setNotificationAnchorEl(null)}>
+                    {describe(notification)}
+                  </MenuItem>
+                ))
+              )}
+              {notifications.length > 0 && (
+                <MenuItem onClick={handleMarkAllRead}>Mark all as read</MenuItem>
+              )}
+            </Menu>
             <IconButton
               size="large"
               aria-label="account of current user"
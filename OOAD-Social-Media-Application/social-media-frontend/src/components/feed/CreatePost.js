@@ -1,7 +1,7 @@
 // src/components/feed/CreatePost.js
 import React, { useState, useContext } from 'react';
 import { AuthContext } from '../../context/AuthContext';
-import { createPost } from '../../api';
+import { createPostWithMedia } from '../../api';
 import {
   Card,
   CardContent,
@@ -21,7 +21,7 @@ const CreatePost = ({ onPostCreated }) => {
   const { currentUser } = useContext(AuthContext);
   const [content, setContent] = useState('');
   const [privacyLevel, setPrivacyLevel] = useState('PUBLIC');
-  const [mediaUrls, setMediaUrls] = useState([]);
+  const [mediaFiles, setMediaFiles] = useState([]);
   const [error, setError] = useState('');
   const [loading, setLoading] = useState(false);
 
@@ -37,14 +37,15 @@ const CreatePost = ({ onPostCreated }) => {
       setError('');
       setLoading(true);
       
-      const response = await createPost({
-        content,
-        privacyLevel,
-        mediaUrls,
-      });
+      const formData = new FormData();
+      formData.append('content', content);
+      formData.append('privacyLevel', privacyLevel);
+      mediaFiles.forEach(({ file }) => formData.append('files', file));
+      const response = await createPostWithMedia(formData);
       
       setContent('');
-      setMediaUrls([]);
+      mediaFiles.forEach(({ preview }) => URL.revokeObjectURL(preview));
+      setMediaFiles([]);
       setPrivacyLevel('PUBLIC');
       onPostCreated(response.data);
     } catch (err) {
@@ -53,18 +54,11 @@ const CreatePost = ({ onPostCreated }) => {
       setLoading(false);
     }
   };
-  // social-media-frontend/src/components/feed/CreatePost.js
-// Update the handleAddMedia function:
-
-const handleAddMedia = (e) => {
-  const file = e.target.files[0];
-  if (file) {
-      const reader = new FileReader();
-      reader.onload = () => {
-        console.log(reader.result);
-        setMediaUrls([...mediaUrls, reader.result]);
-      };
-      reader.readAsDataURL(file);
+  const handleAddMedia = (e) => {
+    const file = e.target.files[0];
+    if (file) {
+      // The file itself is uploaded; the object URL is only for the preview
+      setMediaFiles([...mediaFiles, { file, preview: URL.createObjectURL(file) }]);
     }
   };
 
@@ -95,12 +89,12 @@ const handleAddMedia = (e) => {
                 sx={{ mb: 2 }}
               />
               
-              {mediaUrls.length > 0 && (
+              {mediaFiles.length > 0 && (
                 <Box sx={{ mb: 2 }}>
-                  {mediaUrls.map((url, index) => (
+                  {mediaFiles.map(({ preview }, index) => (
                     <img 
                       key={index} 
-                      src={url || "/placeholder.svg"} 
+                      src={preview || "/placeholder.svg"} 
                       alt={`Preview ${index}`} 
                       style={{ 
                         maxWidth: '100%', 
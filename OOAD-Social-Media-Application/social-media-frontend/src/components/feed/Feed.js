@@ -1,6 +1,6 @@
 // src/components/feed/Feed.js
 import React, { useState, useEffect } from 'react';
-import { getFeed } from '../../api';
+import { getFeed, getPostsByIds, streamFeed } from '../../api';
 import Post from './Post';
 import CreatePost from './CreatePost';
 import { Box, CircularProgress, Typography, Button } from '@mui/material';
@@ -10,28 +10,28 @@ const Feed = () => {
   const [posts, setPosts] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
-  const [page, setPage] = useState(0);
+  const [nextCursor, setNextCursor] = useState(null);
   const [hasMore, setHasMore] = useState(true);
 
   // social-media-frontend/src/components/feed/Feed.js
 // Update the fetchPosts function:
 
-const fetchPosts = async (pageNum = 0) => {
+const fetchPosts = async (cursor = null) => {
   try {
     setLoading(true);
     setError('');
     
-    const response = await getFeed(pageNum);
+    const response = await getFeed(cursor, 10, 2);
     const newPosts = response.data.content || [];
     
-    if (pageNum === 0) {
+    if (!cursor) {
       setPosts(newPosts);
     } else {
       setPosts((prevPosts) => [...prevPosts, ...newPosts]);
     }
     
     setHasMore(!response.data.last);
-    setPage(pageNum);
+    setNextCursor(response.data.nextCursor);
   } catch (err) {
     console.error('Error fetching posts:', err);
     setError('Failed to load posts. Please try again later.');
@@ -45,8 +45,57 @@ const fetchPosts = async (pageNum = 0) => {
     fetchPosts();
   }, []);
 
+  // Live updates replace polling; the stream is reopened after it ends or fails
+  useEffect(() => {
+    const controller = new AbortController();
+    let retry;
+
+    const handleEvent = async (name, data) => {
+      if (name === 'new-post') {
+        const response = await getPostsByIds([data.postId]);
+        setPosts((prevPosts) => [
+          ...response.data.filter((post) => !prevPosts.some((existing) => existing.id === post.id)),
+          ...prevPosts,
+        ]);
+      } else if (name === 'likes') {
+        setPosts((prevPosts) => prevPosts.map((post) =>
+          post.id === data.postId ? { ...post, likesCount: data.likesCount } : post));
+      } else if (name === 'comment-created') {
+        setPosts((prevPosts) => prevPosts.map((post) => post.id === data.postId ? {
+          ...post,
+          commentsCount: post.commentsCount + 1,
+          commentPreviews: [data.comment, ...(post.commentPreviews || [])].slice(0, 2),
+        } : post));
+      } else if (name === 'comment-deleted') {
+        setPosts((prevPosts) => prevPosts.map((post) => post.id === data.postId ? {
+          ...post,
+          commentsCount: Math.max(0, post.commentsCount - 1),
+          commentPreviews: (post.commentPreviews || []).filter((comment) => comment.id !== data.commentId),
+        } : post));
+      } else if (name === 'resync') {
+        fetchPosts();
+      }
+    };
+
+    const connect = () => {
+      streamFeed(handleEvent, controller.signal)
+        .catch((err) => {
+          if (!controller.signal.aborted) console.error('Live feed stream failed:', err);
+        })
+        .finally(() => {
+          if (!controller.signal.aborted) retry = setTimeout(connect, 5000);
+        });
+    };
+    connect();
+
+    return () => {
+      controller.abort();
+      clearTimeout(retry);
+    };
+  }, []);
+
   const handleLoadMore = () => {
-    fetchPosts(page + 1);
+    fetchPosts(nextCursor);
   };
 
   const handlePostCreated = (newPost) => {
@@ -98,7 +147,7 @@ const fetchPosts = async (pageNum = 0) => {
             </Box>
           )}
           
-          {loading && page === 0 && (
+          {loading && posts.length === 0 && (
             <Box sx={{ display: 'flex', justifyContent: 'center', mt: 4 }}>
               <CircularProgress />
             </Box>
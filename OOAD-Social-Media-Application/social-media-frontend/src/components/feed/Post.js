@@ -53,7 +53,8 @@ const Post = ({ post, onPostDeleted, onPostLiked }) => {
         response = await likePost(post.id);
       }
       
-      onPostLiked(response.data);
+      // The response carries only the like state and count
+      onPostLiked({ ...post, likedByCurrentUser: response.data.liked, likesCount: response.data.likesCount });
     } catch (err) {
       console.error('Failed to like/unlike post', err);
     } finally {
@@ -82,6 +83,14 @@ const Post = ({ post, onPostDeleted, onPostLiked }) => {
 
   const isOwner = currentUser?.id === post.user.id;
 
+  // Lets the browser pick the smallest rendition that fits; undefined until renditions exist
+  const renditionSrcSet = (url) => {
+    const variants = (post.mediaVariants || []).filter((variant) => variant.originalUrl === url);
+    return variants.length > 0
+      ? variants.map((variant) => `${variant.url} ${variant.width}w`).join(', ')
+      : undefined;
+  };
+
   return (
     <Card sx={{ mb: 3 }}>
       <CardHeader
@@ -136,6 +145,8 @@ const Post = ({ post, onPostDeleted, onPostLiked }) => {
               <img 
                 key={index} 
                 src={url || "/placeholder.svg"} 
+                srcSet={renditionSrcSet(url)}
+                sizes="(max-width: 600px) 100vw, 600px"
                 alt={`Post media ${index}`} 
                 style={{ 
                   maxWidth: '100%', 
@@ -147,6 +158,17 @@ const Post = ({ post, onPostDeleted, onPostLiked }) => {
             ))}
           </Box>
         )}
+
+        {post.mediaStatus === 'PENDING' && (
+          <Typography variant="body2" color="text.secondary" sx={{ mt: 2 }}>
+            Media is still uploading...
+          </Typography>
+        )}
+        {post.mediaStatus === 'FAILED' && (
+          <Typography variant="body2" color="error" sx={{ mt: 2 }}>
+            Media upload failed.
+          </Typography>
+        )}
       </CardContent>
       <CardActions disableSpacing>
         <IconButton 
@@ -170,6 +192,18 @@ const Post = ({ post, onPostDeleted, onPostLiked }) => {
       </CardActions>
       
       {showComments && <Comments postId={post.id} />}
+      {!showComments && post.commentPreviews?.length > 0 && (
+        <Box sx={{ px: 2, pb: 2 }}>
+          {post.commentPreviews.map((comment) => (
+            <Typography key={comment.id} variant="body2">
+              <Link component={RouterLink} to={`/profile/${comment.user.id}`} underline="hover">
+                <strong>{comment.user.username}</strong>
+              </Link>{' '}
+              {comment.content}
+            </Typography>
+          ))}
+        </Box>
+      )}
     </Card>
   );
 };
@@ -0,0 +1,146 @@
+package com.example.socialmedia.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    // Timeline fan-out runs off the request thread; when the queue is full the
+    // publishing thread does the work itself rather than dropping it
+    @Bean
+    public ThreadPoolTaskExecutor timelineExecutor(@Value("${timeline.executor.threads:4}") int threads,
+                                                   @Value("${timeline.executor.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("timeline-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Parallel per-author reads for the pull-model feed, bounded per instance
+    @Bean
+    public ThreadPoolTaskExecutor feedPullExecutor(@Value("${feed.pull.executor.threads:8}") int threads,
+                                                   @Value("${feed.pull.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("feed-pull-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Image uploads are remote round trips, so this pool is sized for I/O rather than cores
+    @Bean
+    public ThreadPoolTaskExecutor mediaUploadExecutor(@Value("${media.upload.executor.threads:16}") int threads,
+                                                      @Value("${media.upload.executor.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("media-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Renditions are best effort: a full queue rejects new work instead of slowing the uploader down
+    @Bean
+    public ThreadPoolTaskExecutor renditionExecutor(@Value("${media.renditions.executor.threads:2}") int threads,
+                                                    @Value("${media.renditions.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("rendition-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Size-triggered like flushes; one runs at a time and the buffer never queues more than one
+    @Bean
+    public ThreadPoolTaskExecutor likeFlushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("like-flush-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Size-triggered notification flushes, same shape as the like flushes
+    @Bean
+    public ThreadPoolTaskExecutor notificationFlushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("notification-flush-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Live feed fan-out: fills the buffers of the connected audience, off the writing request.
+    // Live events are best effort (clients catch up on their next feed load), so when the
+    // queue is full an event is dropped and counted rather than run on the committing thread
+    @Bean
+    public ThreadPoolTaskExecutor liveEventExecutor(MeterRegistry meterRegistry,
+                                                    @Value("${live.executor.threads:2}") int threads,
+                                                    @Value("${live.executor.queue-capacity:10000}") int queueCapacity) {
+        Counter rejected = Counter.builder("live.events.rejected")
+                .description("Live events dropped because the fan-out queue was full")
+                .register(meterRegistry);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("live-event-");
+        executor.setRejectedExecutionHandler((task, pool) -> rejected.increment());
+        executor.initialize();
+        return executor;
+    }
+
+    // Writes to live streams, at most one task per connection; a rejected drain
+    // leaves the events buffered for the next attempt
+    @Bean
+    public ThreadPoolTaskExecutor liveSendExecutor(@Value("${live.sender.threads:8}") int threads,
+                                                   @Value("${live.sender.queue-capacity:100000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("live-send-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // CPU-bound friends-of-friends scoring; its own pool keeps it off the common pool
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool suggestionPool(@Value("${suggestions.parallelism:4}") int parallelism) {
+        return new ForkJoinPool(parallelism);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.socialmedia.config;
+
+import com.example.socialmedia.repository.UserRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Moves follow edges from the old {@code user_followers} join table into
+ * {@code follows} and fills in the follow counters. The old table is renamed
+ * rather than dropped, so the copy runs once and can still be checked by hand.
+ * Also adds the foreign keys from both ends of a follow edge to {@code users},
+ * which the schema update cannot add while orphaned edges exist.
+ */
+@Component
+public class FollowGraphMigration implements ApplicationRunner {
+
+    static final String LEGACY_TABLE = "user_followers";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+
+    public FollowGraphMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                UserRepository userRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate();
+        addForeignKeys();
+    }
+
+    // MySQL commits implicitly before DDL, so the rename cannot share the copy's
+    // transaction; the copy is idempotent and simply runs again if the rename never happened
+    public void migrate() {
+        if (!legacyTableExists()) {
+            return;
+        }
+        Integer copied = transactionTemplate.execute(status -> {
+            // user_id is the followed user in the old mapping
+            int inserted = jdbcTemplate.update("INSERT IGNORE INTO follows (follower_id, followee_id, created_at) " +
+                    "SELECT follower_id, user_id, CURRENT_TIMESTAMP FROM " + LEGACY_TABLE);
+            userRepository.recountFollowCounters(LocalDateTime.now());
+            return inserted;
+        });
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " RENAME TO " + LEGACY_TABLE + "_migrated");
+        System.out.println("Migrated " + copied + " follow edges from " + LEGACY_TABLE);
+    }
+
+    public void addForeignKeys() {
+        Set<String> constrained = foreignKeyColumns();
+        addForeignKey(constrained, "fk_follows_follower", "follower_id");
+        addForeignKey(constrained, "fk_follows_followee", "followee_id");
+    }
+
+    private void addForeignKey(Set<String> constrained, String name, String column) {
+        if (constrained.contains(column)) {
+            return;
+        }
+        Integer orphans = transactionTemplate.execute(status -> {
+            int deleted = jdbcTemplate.update("DELETE FROM follows WHERE " + column + " NOT IN (SELECT id FROM users)");
+            if (deleted > 0) {
+                userRepository.recountFollowCounters(LocalDateTime.now());
+            }
+            return deleted;
+        });
+        jdbcTemplate.execute("ALTER TABLE follows ADD CONSTRAINT " + name +
+                " FOREIGN KEY (" + column + ") REFERENCES users (id)");
+        System.out.println("Added " + name + " after removing " + orphans + " orphaned follow edges");
+    }
+
+    // Columns of follows that already reference users, whatever their constraints are called
+    private Set<String> foreignKeyColumns() {
+        return jdbcTemplate.execute((Connection connection) -> {
+            Set<String> columns = new HashSet<>();
+            try (ResultSet keys = connection.getMetaData().getImportedKeys(connection.getCatalog(), null, "follows")) {
+                while (keys.next()) {
+                    if ("users".equalsIgnoreCase(keys.getString("PKTABLE_NAME"))) {
+                        columns.add(keys.getString("FKCOLUMN_NAME").toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return columns;
+        });
+    }
+    private boolean legacyTableExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> {
+            try (ResultSet tables = connection.getMetaData()
+                    .getTables(connection.getCatalog(), null, LEGACY_TABLE, new String[] {"TABLE"})) {
+                return tables.next();
+            } catch (SQLException e) {
+                System.err.println("Could not inspect tables for " + LEGACY_TABLE + ": " + e.getMessage());
+                return false;
+            }
+        }));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.socialmedia.config;
+
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.repository.EntityCacheEvictor;
+import com.example.socialmedia.repository.PostRepository;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Makes sure {@code likes} has its unique (user_id, post_id) key. The schema
+ * update cannot add it while duplicate likes exist and only logs the failure,
+ * which would leave the like buffer's INSERT IGNORE ignoring nothing. So
+ * duplicates are removed first (keeping the oldest like), the affected posts'
+ * counters are recounted, and the key is added. Startup fails if the key is
+ * still missing. Runs once the schema is up and before the like buffer is
+ * created.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class LikeConstraintMigration implements InitializingBean {
+
+    static final String CONSTRAINT = "uk_likes_user_post";
+
+    private static final int RECOUNT_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PostRepository postRepository;
+    private final EntityCacheEvictor entityCacheEvictor;
+
+    public LikeConstraintMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   PostRepository postRepository, EntityCacheEvictor entityCacheEvictor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.postRepository = postRepository;
+        this.entityCacheEvictor = entityCacheEvictor;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    public void migrate() {
+        if (hasUniqueKey()) {
+            return;
+        }
+        List<Long> postIds = transactionTemplate.execute(status -> removeDuplicates());
+        jdbcTemplate.execute("ALTER TABLE likes ADD CONSTRAINT " + CONSTRAINT + " UNIQUE (user_id, post_id)");
+        if (!hasUniqueKey()) {
+            throw new IllegalStateException("likes has no unique (user_id, post_id) key; buffered likes would duplicate");
+        }
+        System.out.println("Added " + CONSTRAINT + " after removing duplicate likes on " + postIds.size() + " posts");
+    }
+
+    // Returns the posts that had duplicates, with their counters already recounted
+    private List<Long> removeDuplicates() {
+        List<Long> postIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT post_id FROM likes GROUP BY user_id, post_id HAVING COUNT(*) > 1", Long.class);
+        if (postIds.isEmpty()) {
+            return postIds;
+        }
+        // The derived table lets MySQL delete from the table the subquery reads
+        jdbcTemplate.update("DELETE FROM likes WHERE id NOT IN " +
+                "(SELECT keep_id FROM (SELECT MIN(id) AS keep_id FROM likes GROUP BY user_id, post_id) kept)");
+        for (int from = 0; from < postIds.size(); from += RECOUNT_BATCH_SIZE) {
+            List<Long> batch = new ArrayList<>(postIds.subList(from, Math.min(from + RECOUNT_BATCH_SIZE, postIds.size())));
+            postRepository.recountCounters(batch, LocalDateTime.now());
+            entityCacheEvictor.evict(Post.class, batch);
+        }
+        return postIds;
+    }
+
+    // Any unique index on exactly (user_id, post_id) counts, whatever it is called
+    private boolean hasUniqueKey() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> {
+            Map<String, List<String>> columnsByIndex = new HashMap<>();
+            try (ResultSet indexes = connection.getMetaData()
+                    .getIndexInfo(connection.getCatalog(), null, "likes", true, false)) {
+                while (indexes.next()) {
+                    String column = indexes.getString("COLUMN_NAME");
+                    if (column != null) {
+                        columnsByIndex.computeIfAbsent(indexes.getString("INDEX_NAME"), name -> new ArrayList<>())
+                                .add(column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return columnsByIndex.values().stream()
+                    .anyMatch(columns -> columns.size() == 2 && columns.containsAll(List.of("user_id", "post_id")));
+        }));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.socialmedia.config;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Read-only transactions may run on a lagging replica, so the rows they load
+ * must not go into the second-level cache: a row evicted after a write would
+ * be put back stale and served from every later transaction until its TTL.
+ * Read-only transactions therefore read the cache but never write it
+ * ({@link CacheStoreMode#BYPASS}, i.e. {@link CacheMode#GET}). It is set as
+ * the JPA property because {@code find} derives its cache mode from the
+ * session properties. The previous mode is restored afterwards, since an
+ * open-in-view session outlives the transaction.
+ */
+public class ReadOnlyCacheModeJpaDialect extends HibernateJpaDialect {
+
+    private static final String STORE_MODE = "jakarta.persistence.cache.storeMode";
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+        Object previous = entityManager.getProperties().getOrDefault(STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReadOnlyTransactionData(transactionData, entityManager, previous);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData readOnly) {
+            readOnly.entityManager().setProperty(STORE_MODE, readOnly.previous());
+            super.cleanupTransaction(readOnly.delegate());
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    private record ReadOnlyTransactionData(Object delegate, EntityManager entityManager, Object previous) {
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.socialmedia.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Sends connections for read-only transactions to a replica, round robin,
+ * and everything else to the primary. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the connection is fetched once the transaction's read-only flag is set.
+ * <p>
+ * A user whose read-write transaction ran in the last sticky window reads
+ * from the primary, so they see their own writes. Replicas are probed on a
+ * schedule and skipped while they lag more than the allowed seconds, fail
+ * the probe or fail to hand out a connection; with none usable, reads go to
+ * the primary. The probe runs on its own thread (see {@link #startProbing}),
+ * so a long job on the shared scheduler cannot keep a lagging replica in
+ * rotation.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+    private final Cache<String, Boolean> recentWriters;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private ScheduledExecutorService prober;
+
+    static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        // Unusable until the first successful probe
+        private volatile boolean available;
+        private volatile long lagSeconds = -1;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, String lagQuery,
+                                      String lagColumn, long maxLagSeconds, Duration stickyWindow,
+                                      MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicaDataSources.size())
+                .mapToObj(i -> new Replica("replica-" + i, replicaDataSources.get(i)))
+                .toList();
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLagSeconds;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(100_000)
+                .build();
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication lag in seconds at the last probe, -1 if unknown")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+            return source.get(primary);
+        }
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            return source.get(primary);
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            if (!replica.available) {
+                continue;
+            }
+            try {
+                return source.get(replica.dataSource);
+            } catch (SQLException e) {
+                // Out of rotation until the next probe succeeds
+                replica.available = false;
+                System.err.println("Replica " + replica.name + " failed, reading from primary: " + e.getMessage());
+            }
+        }
+        return source.get(primary);
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    public synchronized void startProbing(Duration interval) {
+        if (prober != null) {
+            return;
+        }
+        prober = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(() -> {
+            try {
+                checkReplicas();
+            } catch (RuntimeException e) {
+                // A thrown exception would cancel the schedule
+                System.err.println("Replica probe failed: " + e.getMessage());
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            long lag = probeLag(replica);
+            boolean available = lag >= 0 && lag <= maxLagSeconds;
+            if (available != replica.available) {
+                System.out.println("Replica " + replica.name + (available ? " back in rotation" : " out of rotation")
+                        + " (lag " + lag + "s)");
+            }
+            replica.lagSeconds = lag;
+            replica.available = available;
+        }
+    }
+
+    // Seconds behind the primary, or -1 when the replica is unreachable or not replicating
+    private long probeLag(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return -1;
+            }
+            long lag = resultSet.getLong(lagColumn);
+            return resultSet.wasNull() ? -1 : lag;
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    // The replica pools are owned here; the primary is closed by whoever created it
+    @Override
+    public void close() throws Exception {
+        synchronized (this) {
+            if (prober != null) {
+                prober.shutdownNow();
+            }
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.socialmedia.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for the hot entities. Every region is a bounded
+ * Caffeine cache with a write TTL, created here so the sizes come from
+ * application.properties; an entity or collection mapped to any other region
+ * fails at startup. Each region publishes cache.* metrics and a hit ratio
+ * under its own name.
+ * <p>
+ * The query cache stays off: post and user counters change on every like,
+ * comment and follow, which would invalidate cached results constantly.
+ * <p>
+ * Regions are local to each instance and nothing invalidates them across
+ * instances: a write evicts the row only where it ran, and other instances
+ * keep serving their copy until the TTL expires. The TTLs are therefore kept
+ * short, and deployments with several instances that cannot accept that
+ * staleness set {@code l2cache.enabled=false}. With read replicas,
+ * read-only transactions do not populate the regions (see
+ * {@link ReadOnlyCacheModeJpaDialect}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "l2cache.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    public static final String USERS_REGION = "users";
+    public static final String POSTS_REGION = "posts";
+    public static final String POST_MEDIA_URLS_REGION = "post-media-urls";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            MeterRegistry meterRegistry,
+            @Value("${l2cache.users.max-size:50000}") long usersSize,
+            @Value("${l2cache.users.ttl-seconds:60}") long usersTtl,
+            @Value("${l2cache.posts.max-size:100000}") long postsSize,
+            @Value("${l2cache.posts.ttl-seconds:30}") long postsTtl,
+            @Value("${l2cache.post-media-urls.max-size:100000}") long mediaUrlsSize,
+            @Value("${l2cache.post-media-urls.ttl-seconds:300}") long mediaUrlsTtl) {
+        // A private manager, so application contexts in the same JVM never share regions
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("socialmedia-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+        createRegion(cacheManager, meterRegistry, USERS_REGION, usersSize, usersTtl);
+        createRegion(cacheManager, meterRegistry, POSTS_REGION, postsSize, postsTtl);
+        createRegion(cacheManager, meterRegistry, POST_MEDIA_URLS_REGION, mediaUrlsSize, mediaUrlsTtl);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static void createRegion(CacheManager cacheManager, MeterRegistry meterRegistry,
+                                     String region, long maxSize, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maxSize))
+                .setExpireAfterWrite(OptionalLong.of(Duration.ofSeconds(ttlSeconds).toNanos()))
+                // Hibernate stores immutable cache entries, so copying them on every read is wasted work
+                .setStoreByValue(false)
+                .setNativeStatisticsEnabled(true);
+        com.github.benmanes.caffeine.cache.Cache<?, ?> cache = cacheManager.createCache(region, configuration)
+                .unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "l2-" + region);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of lookups served from the cache since startup")
+                .tag("cache", "l2-" + region)
+                .register(meterRegistry);
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.socialmedia.config;
 
 import com.example.socialmedia.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -33,6 +35,11 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
     http
         .authorizeHttpRequests(auth -> auth
             .requestMatchers("/api/auth/**").permitAll()
+            // Live streams were authenticated on the initial request; their async
+            // dispatches carry no token
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+            // Media is loaded by <img> tags, which cannot send the bearer token
+            .requestMatchers(HttpMethod.GET, "/api/media/**").permitAll()
             .anyRequest().authenticated()
         )
         .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
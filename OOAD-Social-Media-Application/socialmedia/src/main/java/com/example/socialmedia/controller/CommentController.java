@@ -2,14 +2,14 @@ package com.example.socialmedia.controller;
 
 import com.example.socialmedia.dto.CommentDTO;
 import com.example.socialmedia.dto.CommentRequest;
+import com.example.socialmedia.dto.CursorPage;
 import com.example.socialmedia.service.CommentService;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/posts/{postId}/comments")
@@ -22,10 +22,13 @@ public class CommentController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<CommentDTO>> getCommentsByPostId(
+    public ResponseEntity<CursorPage<CommentDTO>> getCommentsByPostId(
             @PathVariable Long postId,
-            Pageable pageable) {
-        return ResponseEntity.ok(commentService.getCommentsByPostId(postId, pageable));
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        return ConditionalGet.respond(request, commentService.getCommentsVersion(postId),
+                () -> commentService.getCommentsByPostId(postId, cursor, size));
     }
 
     @PostMapping
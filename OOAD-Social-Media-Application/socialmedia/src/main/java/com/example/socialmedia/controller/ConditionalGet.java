@@ -0,0 +1,29 @@
+package com.example.socialmedia.controller;
+
+import com.example.socialmedia.service.ContentVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+// Checks If-None-Match against the version before the body is
+// built, so an unchanged resource costs one marker lookup and no serialization.
+// Responses are per user and must be revalidated on every use.
+final class ConditionalGet {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    // The body is built after the version is read, so at worst it is newer than
+    // its ETag and the next request gets a full response again
+    static <T> ResponseEntity<T> respond(WebRequest request, ContentVersion version, Supplier<T> body) {
+        if (request.checkNotModified(version.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(body.get());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.socialmedia.controller;
+
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.NotificationDTO;
+import com.example.socialmedia.dto.NotificationReadRequest;
+import com.example.socialmedia.dto.UnreadCountDTO;
+import com.example.socialmedia.service.NotificationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/notifications")
+public class NotificationController {
+
+    private final NotificationService notificationService;
+
+    public NotificationController(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    @GetMapping("/unread")
+    public ResponseEntity<CursorPage<NotificationDTO>> getUnread(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(notificationService.getUnread(userDetails.getUsername(), cursor, size));
+    }
+
+    @GetMapping("/unread/count")
+    public ResponseEntity<UnreadCountDTO> getUnreadCount(@AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(notificationService.getUnreadCount(userDetails.getUsername()));
+    }
+
+    @PostMapping("/read")
+    public ResponseEntity<UnreadCountDTO> markRead(
+            @RequestBody(required = false) NotificationReadRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(notificationService.markRead(userDetails.getUsername(),
+                request != null ? request.getIds() : null));
+    }
+}
@@ -1,31 +1,52 @@
 package com.example.socialmedia.controller;
 
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.LikeBatchRequest;
+import com.example.socialmedia.dto.LikeBatchResultDTO;
+import com.example.socialmedia.dto.LikeStatusDTO;
 import com.example.socialmedia.dto.PostDTO;
 import com.example.socialmedia.dto.PostRequest;
+import com.example.socialmedia.service.FeedMode;
+import com.example.socialmedia.service.LiveFeedHub;
 import com.example.socialmedia.service.PostService;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/posts")
 public class PostController {
 
     private final PostService postService;
+    private final LiveFeedHub liveFeedHub;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, LiveFeedHub liveFeedHub) {
         this.postService = postService;
+        this.liveFeedHub = liveFeedHub;
     }
 
     @GetMapping
-    public ResponseEntity<Page<PostDTO>> getFeed(
+    public ResponseEntity<CursorPage<PostDTO>> getFeed(
             @AuthenticationPrincipal UserDetails userDetails,
-            Pageable pageable) {
-        return ResponseEntity.ok(postService.getFeed(userDetails.getUsername(), pageable));
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) FeedMode mode,
+            @RequestParam(defaultValue = "0") int comments) {
+        return ResponseEntity.ok(postService.getFeed(userDetails.getUsername(), cursor, size, mode, comments));
+    }
+
+    // Server-Sent Events: new-post, likes, comment-created, comment-deleted and resync
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeed(@AuthenticationPrincipal UserDetails userDetails) {
+        return liveFeedHub.subscribe(userDetails.getUsername());
     }
 
     @PostMapping
@@ -35,11 +56,46 @@ public class PostController {
         return ResponseEntity.ok(postService.createPost(userDetails.getUsername(), postRequest));
     }
 
+    // Multipart variant: post fields as form fields, images as "files" parts streamed from disk
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<PostDTO> createPostWithMedia(
+            @Valid @ModelAttribute PostRequest postRequest,
+            @RequestParam(name = "files", required = false) List<MultipartFile> files,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(postService.createPost(userDetails.getUsername(), postRequest,
+                files != null ? files : List.of()));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<PostDTO>> getTrending(
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(postService.getTrending(userDetails.getUsername(), limit));
+    }
+
+    // e.g. /api/posts/batch?ids=1,2,3
+    @GetMapping("/batch")
+    public ResponseEntity<List<PostDTO>> getPostsByIds(
+            @RequestParam List<Long> ids,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(postService.getPostsByIds(ids, userDetails.getUsername()));
+    }
+
+    @PostMapping("/batch/likes")
+    public ResponseEntity<List<LikeBatchResultDTO>> applyLikes(
+            @Valid @RequestBody LikeBatchRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(postService.applyLikes(request.getLikes(), userDetails.getUsername()));
+    }
+
     @GetMapping("/{postId}")
     public ResponseEntity<PostDTO> getPostById(
             @PathVariable Long postId,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        return ResponseEntity.ok(postService.getPostById(postId, userDetails.getUsername()));
+            @AuthenticationPrincipal UserDetails userDetails,
+            WebRequest request) {
+        String username = userDetails.getUsername();
+        return ConditionalGet.respond(request, postService.getPostVersion(postId, username),
+                () -> postService.getPostById(postId, username));
     }
 
     @DeleteMapping("/{postId}")
@@ -51,14 +107,14 @@ public class PostController {
     }
 
     @PostMapping("/{postId}/like")
-    public ResponseEntity<PostDTO> likePost(
+    public ResponseEntity<LikeStatusDTO> likePost(
             @PathVariable Long postId,
             @AuthenticationPrincipal UserDetails userDetails) {
         return ResponseEntity.ok(postService.likePost(postId, userDetails.getUsername()));
     }
 
     @DeleteMapping("/{postId}/like")
-    public ResponseEntity<PostDTO> unlikePost(
+    public ResponseEntity<LikeStatusDTO> unlikePost(
             @PathVariable Long postId,
             @AuthenticationPrincipal UserDetails userDetails) {
         return ResponseEntity.ok(postService.unlikePost(postId, userDetails.getUsername()));
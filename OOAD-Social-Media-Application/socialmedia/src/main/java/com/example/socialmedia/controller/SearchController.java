@@ -0,0 +1,38 @@
+package com.example.socialmedia.controller;
+
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping("/posts")
+    public ResponseEntity<CursorPage<PostDTO>> searchPosts(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(searchService.searchPosts(userDetails.getUsername(), q, cursor, size));
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<CursorPage<UserDTO>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(searchService.searchUsers(q, cursor, size));
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.socialmedia.controller;
 
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.SuggestionDTO;
 import com.example.socialmedia.dto.UserDTO;
 import com.example.socialmedia.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/users")
@@ -17,9 +22,33 @@ public class UserController {
         this.userService = userService;
     }
 
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<SuggestionDTO>> getSuggestions(
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(userService.getSuggestions(userDetails.getUsername(), limit));
+    }
+
     @GetMapping("/{userId}")
-    public ResponseEntity<UserDTO> getUserProfile(@PathVariable Long userId) {
-        return ResponseEntity.ok(userService.getUserProfile(userId));
+    public ResponseEntity<UserDTO> getUserProfile(@PathVariable Long userId, WebRequest request) {
+        return ConditionalGet.respond(request, userService.getUserProfileVersion(userId),
+                () -> userService.getUserProfile(userId));
+    }
+
+    @GetMapping("/{userId}/followers")
+    public ResponseEntity<CursorPage<UserDTO>> getFollowers(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userService.getFollowers(userId, cursor, size));
+    }
+
+    @GetMapping("/{userId}/following")
+    public ResponseEntity<CursorPage<UserDTO>> getFollowing(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userService.getFollowing(userId, cursor, size));
     }
 
     @PostMapping("/{userId}/follow")
@@ -0,0 +1,36 @@
+package com.example.socialmedia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+// A keyset page: no total count, just the items and where to continue from
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean last;
+
+    // Builds a page from rows that were fetched with a limit of size + 1
+    public static <E, T> CursorPage<T> fromRows(List<E> rows, int size, Function<E, PageCursor> cursorOf,
+                                                Function<List<E>, List<T>> mapper) {
+        return build(rows, size, row -> cursorOf.apply(row).encode(), mapper);
+    }
+
+    // Same as fromRows, for lists ordered by a ranking score
+    public static <E, T> CursorPage<T> fromRankedRows(List<E> rows, int size, Function<E, ScoreCursor> cursorOf,
+                                                      Function<List<E>, List<T>> mapper) {
+        return build(rows, size, row -> cursorOf.apply(row).encode(), mapper);
+    }
+
+    private static <E, T> CursorPage<T> build(List<E> rows, int size, Function<E, String> encodedCursorOf,
+                                              Function<List<E>, List<T>> mapper) {
+        boolean last = rows.size() <= size;
+        List<E> pageRows = last ? rows : rows.subList(0, size);
+        String nextCursor = last ? null : encodedCursorOf.apply(pageRows.get(pageRows.size() - 1));
+        return new CursorPage<>(mapper.apply(pageRows), nextCursor, last);
+    }
+}
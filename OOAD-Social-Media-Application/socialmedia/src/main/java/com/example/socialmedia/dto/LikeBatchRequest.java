@@ -0,0 +1,13 @@
+package com.example.socialmedia.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LikeBatchRequest {
+    @NotEmpty(message = "At least one like is required")
+    private List<@Valid LikeMutationRequest> likes;
+}
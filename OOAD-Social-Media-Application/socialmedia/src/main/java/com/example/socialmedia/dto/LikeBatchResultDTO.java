@@ -0,0 +1,14 @@
+package com.example.socialmedia.dto;
+
+import lombok.Data;
+
+// Outcome of one item of a batch like request. status is the HTTP status the
+// single-post endpoint would have returned; liked and likesCount are only set on 200.
+@Data
+public class LikeBatchResultDTO {
+    private Long postId;
+    private int status;
+    private String error;
+    private Boolean liked;
+    private Integer likesCount;
+}
@@ -0,0 +1,12 @@
+package com.example.socialmedia.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+// One item of a batch like request; liked=false removes the like
+@Data
+public class LikeMutationRequest {
+    @NotNull(message = "Post id is required")
+    private Long postId;
+    private boolean liked = true;
+}
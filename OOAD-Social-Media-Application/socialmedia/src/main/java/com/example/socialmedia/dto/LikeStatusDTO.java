@@ -0,0 +1,11 @@
+package com.example.socialmedia.dto;
+
+import lombok.Data;
+
+// Returned by like/unlike; the count includes likes not yet written to the database
+@Data
+public class LikeStatusDTO {
+    private Long postId;
+    private boolean liked;
+    private int likesCount;
+}
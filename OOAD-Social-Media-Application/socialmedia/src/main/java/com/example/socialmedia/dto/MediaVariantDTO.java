@@ -0,0 +1,15 @@
+package com.example.socialmedia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaVariantDTO {
+    private String originalUrl;
+    private String url;
+    private int width;
+    private int height;
+}
@@ -0,0 +1,19 @@
+package com.example.socialmedia.dto;
+
+import com.example.socialmedia.model.Notification;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Rendered as "<lastActor> and <actorCount - 1> others liked your post"; targetId is
+// the post for likes and comments and the recipient for follows
+@Data
+public class NotificationDTO {
+    private Long id;
+    private Notification.Type type;
+    private Long targetId;
+    private UserDTO lastActor;
+    private int actorCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,11 @@
+package com.example.socialmedia.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Notifications to mark as read; no ids marks all of them
+@Data
+public class NotificationReadRequest {
+    private List<Long> ids;
+}
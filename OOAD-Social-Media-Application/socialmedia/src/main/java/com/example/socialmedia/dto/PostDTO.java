@@ -4,6 +4,7 @@ import com.example.socialmedia.model.Post;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -11,10 +12,15 @@ public class PostDTO {
     private Long id;
     private String content;
     private Set<String> mediaUrls;
+    // Sized copies of mediaUrls, smallest first per original; empty until renditions are ready
+    private List<MediaVariantDTO> mediaVariants;
     private Post.PrivacyLevel privacyLevel;
+    private Post.MediaStatus mediaStatus;
     private LocalDateTime createdAt;
     private UserDTO user;
     private int likesCount;
     private int commentsCount;
     private boolean likedByCurrentUser;
+    // Newest comments first; only filled when the feed is asked for previews
+    private List<CommentDTO> commentPreviews;
 }
\ No newline at end of file
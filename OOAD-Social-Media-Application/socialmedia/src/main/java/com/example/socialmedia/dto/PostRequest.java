@@ -17,4 +17,7 @@ public class PostRequest {
     private Set<String> mediaUrls = new HashSet<>();
     
     private Post.PrivacyLevel privacyLevel = Post.PrivacyLevel.PUBLIC;
+
+    // When true the post is saved right away with media PENDING; null uses media.upload.defer
+    private Boolean deferMedia;
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.example.socialmedia.dto;
+
+import com.example.socialmedia.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Position in a ranked list ordered by {@code (score DESC, id DESC)}. The
+ * score is carried bit for bit so the next page resumes exactly where the
+ * previous one stopped.
+ * <p>
+ * Scores depend on corpus statistics that move with every write, so the
+ * cursor also pins the document count and the document frequency of each
+ * term the first page matched (including prefix expansions). Later pages are
+ * scored with those numbers and rank the documents seen so far exactly as the
+ * first page did. A {@code docCount} of 0 means nothing is pinned.
+ */
+public record ScoreCursor(double score, long id, int docCount, Map<String, Integer> documentFrequencies) {
+
+    public ScoreCursor(double score, long id) {
+        this(score, id, 0, Map.of());
+    }
+
+    public boolean pinsStatistics() {
+        return docCount > 0;
+    }
+
+    // Terms are index tokens, letters and digits only, so they need no escaping
+    public String encode() {
+        StringBuilder raw = new StringBuilder()
+                .append(Long.toHexString(Double.doubleToLongBits(score))).append('|').append(id);
+        if (pinsStatistics()) {
+            raw.append('|').append(docCount).append('|');
+            new TreeMap<>(documentFrequencies).forEach((term, df) -> raw.append(term).append('=').append(df).append(';'));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // True when this position comes after the cursor in ranking order
+    public boolean isAfter(ScoreCursor cursor) {
+        return score < cursor.score || (score == cursor.score && id < cursor.id);
+    }
+
+    // Returns null for a missing cursor, i.e. the first page
+    public static ScoreCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            double score = Double.longBitsToDouble(Long.parseUnsignedLong(parts[0], 16));
+            long id = Long.parseLong(parts[1]);
+            if (parts.length == 2) {
+                return new ScoreCursor(score, id);
+            }
+            Map<String, Integer> documentFrequencies = new TreeMap<>();
+            for (String entry : parts[3].split(";")) {
+                if (!entry.isEmpty()) {
+                    int separator = entry.lastIndexOf('=');
+                    documentFrequencies.put(entry.substring(0, separator), Integer.parseInt(entry.substring(separator + 1)));
+                }
+            }
+            return new ScoreCursor(score, id, Integer.parseInt(parts[2]), documentFrequencies);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.socialmedia.dto;
+
+import lombok.Data;
+
+@Data
+public class SuggestionDTO {
+    private UserDTO user;
+    private int mutualCount;
+}
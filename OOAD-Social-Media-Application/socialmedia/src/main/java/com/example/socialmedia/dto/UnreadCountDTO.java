@@ -0,0 +1,9 @@
+package com.example.socialmedia.dto;
+
+import lombok.Data;
+
+// Unread notifications, as written so far; actions still in the buffer are not counted yet
+@Data
+public class UnreadCountDTO {
+    private int unreadCount;
+}
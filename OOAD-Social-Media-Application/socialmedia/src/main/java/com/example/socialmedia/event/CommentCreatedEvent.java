@@ -0,0 +1,8 @@
+package com.example.socialmedia.event;
+
+import com.example.socialmedia.dto.CommentDTO;
+import com.example.socialmedia.model.Post;
+
+// authorId and privacyLevel are those of the commented post
+public record CommentCreatedEvent(Long postId, Long authorId, Post.PrivacyLevel privacyLevel, CommentDTO comment) {
+}
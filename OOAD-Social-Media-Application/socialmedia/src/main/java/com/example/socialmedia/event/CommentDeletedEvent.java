@@ -0,0 +1,7 @@
+package com.example.socialmedia.event;
+
+import com.example.socialmedia.model.Post;
+
+// authorId and privacyLevel are those of the post the comment belonged to
+public record CommentDeletedEvent(Long commentId, Long postId, Long authorId, Post.PrivacyLevel privacyLevel) {
+}
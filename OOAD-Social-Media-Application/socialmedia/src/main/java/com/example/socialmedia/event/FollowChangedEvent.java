@@ -0,0 +1,5 @@
+package com.example.socialmedia.event;
+
+// Published when followerId starts (following = true) or stops following followeeId
+public record FollowChangedEvent(Long followerId, Long followeeId, boolean following) {
+}
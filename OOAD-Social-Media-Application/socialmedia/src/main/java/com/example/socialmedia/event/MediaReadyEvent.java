@@ -0,0 +1,7 @@
+package com.example.socialmedia.event;
+
+import java.util.List;
+
+// Published once a post's original media URLs are stored and attached
+public record MediaReadyEvent(Long postId, List<String> mediaUrls) {
+}
@@ -0,0 +1,9 @@
+package com.example.socialmedia.event;
+
+import com.example.socialmedia.model.Post;
+
+import java.time.LocalDateTime;
+
+public record PostCreatedEvent(Long postId, Long authorId, Post.PrivacyLevel privacyLevel, LocalDateTime createdAt,
+                               String content) {
+}
@@ -0,0 +1,7 @@
+package com.example.socialmedia.event;
+
+import java.util.List;
+
+// Carries the post's media so its blobs can be deleted after the rows are gone
+public record PostDeletedEvent(Long postId, Long authorId, List<String> mediaUrls) {
+}
@@ -0,0 +1,8 @@
+package com.example.socialmedia.event;
+
+import com.example.socialmedia.model.Post;
+
+// Published when userId's like or unlike changes a post's count; likesCount includes buffered likes
+public record PostLikesChangedEvent(Long postId, Long authorId, Post.PrivacyLevel privacyLevel, int likesCount,
+                                    Long userId, boolean liked) {
+}
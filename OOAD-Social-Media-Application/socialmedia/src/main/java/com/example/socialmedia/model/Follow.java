@@ -0,0 +1,43 @@
+package com.example.socialmedia.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// One follow edge: followerId follows followeeId. Both ids reference users;
+// the foreign keys are added by FollowGraphMigration
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(Follow.Key.class)
+@Table(name = "follows", indexes = {
+    @Index(name = "idx_follows_followee", columnList = "followee_id, follower_id"),
+    @Index(name = "idx_follows_followee_created", columnList = "followee_id, created_at, follower_id"),
+    @Index(name = "idx_follows_follower_created", columnList = "follower_id, created_at, followee_id")
+})
+public class Follow {
+
+    @Id
+    @Column(name = "follower_id")
+    private Long followerId;
+
+    @Id
+    @Column(name = "followee_id")
+    private Long followeeId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long followerId;
+        private Long followeeId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.socialmedia.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One stored size of a post image; the original itself is recorded too so clients see its dimensions
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "media_variants", indexes = {
+    @Index(name = "idx_media_variants_post", columnList = "post_id"),
+    @Index(name = "idx_media_variants_url", columnList = "url")
+})
+public class MediaVariant {
+    
+    @Id
+    @TimeOrderedId
+    private Long id;
+    
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+    
+    @Column(nullable = false, length = 512)
+    private String originalUrl;
+    
+    @Column(nullable = false, length = 512)
+    private String url;
+    
+    private int width;
+    
+    private int height;
+}
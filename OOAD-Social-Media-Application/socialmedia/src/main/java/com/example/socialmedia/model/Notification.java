@@ -0,0 +1,60 @@
+package com.example.socialmedia.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One coalesced notification: actorCount users liked or commented on the recipient's
+// post (targetId), or followed the recipient (targetId is the recipient). New actors
+// are merged into the unread notification for the same target; unreadKey is unique,
+// so there is at most one such notification even when instances flush concurrently.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notification_unread", columnList = "recipient_id, is_read, updated_at, id"),
+    @Index(name = "idx_notification_target", columnList = "recipient_id, type, target_id")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_notification_unread", columnNames = "unread_key"))
+public class Notification {
+
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    // The most recent actor, shown by name next to the count of the others
+    @Column(name = "last_actor_id", nullable = false)
+    private Long lastActorId;
+
+    @Column(name = "actor_count", nullable = false)
+    private int actorCount;
+
+    @Column(name = "is_read", nullable = false)
+    private boolean read;
+
+    // (recipient, type, target) while unread, NULL once read; computed by the database
+    @Column(name = "unread_key", insertable = false, updatable = false, columnDefinition =
+            "varchar(64) GENERATED ALWAYS AS (CASE WHEN is_read = FALSE THEN CONCAT(recipient_id, ':', type, ':', target_id) END)")
+    private String unreadKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Type {
+        LIKE, COMMENT, FOLLOW
+    }
+}
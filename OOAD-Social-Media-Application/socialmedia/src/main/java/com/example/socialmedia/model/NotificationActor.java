@@ -0,0 +1,35 @@
+package com.example.socialmedia.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// One distinct actor of a coalesced notification. The notification's actorCount is
+// counted from these rows, so an actor who comes back in a later window counts once.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(NotificationActor.Key.class)
+@Table(name = "notification_actors")
+public class NotificationActor {
+
+    @Id
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    @Id
+    @Column(name = "actor_id")
+    private Long actorId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long notificationId;
+        private Long actorId;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.socialmedia.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Unread notifications per user, kept in step with the notifications table so the
+// badge count is a primary key lookup
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "notification_counters")
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private int unreadCount;
+}
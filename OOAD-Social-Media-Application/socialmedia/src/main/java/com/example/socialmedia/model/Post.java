@@ -1,9 +1,14 @@
 package com.example.socialmedia.model;
 
 import jakarta.persistence.*;
+import com.example.socialmedia.config.SecondLevelCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -12,20 +17,27 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "posts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.POSTS_REGION)
+@Table(name = "posts", indexes = {
+    @Index(name = "idx_posts_privacy_created", columnList = "privacy_level, created_at, id"),
+    @Index(name = "idx_posts_user_created", columnList = "user_id, created_at, id")
+})
 public class Post {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
     
     @Column(nullable = false)
     private String content;
     
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.POST_MEDIA_URLS_REGION)
     @CollectionTable(
         name = "post_media_urls",
-        joinColumns = @JoinColumn(name = "post_id")
+        joinColumns = @JoinColumn(name = "post_id"),
+        indexes = @Index(name = "idx_post_media_urls_url", columnList = "media_url")
     )
     @Column(name = "media_url")
     private Set<String> mediaUrls = new HashSet<>();
@@ -33,20 +45,55 @@ public class Post {
     @Enumerated(EnumType.STRING)
     private PrivacyLevel privacyLevel = PrivacyLevel.PUBLIC;
     
+    // PENDING while deferred uploads are still running; READY first so existing rows default to it
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MediaStatus mediaStatus = MediaStatus.READY;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
-    @ManyToOne
+    // Validators for conditional GETs, bumped on every change to the post or its
+    // counters (commentsModifiedAt only when comments change); null on rows that
+    // predate them, which fall back to createdAt. An entity save always moves
+    // modifiedAt forward, so only commentsModifiedAt is kept out of it.
+    private LocalDateTime modifiedAt = LocalDateTime.now();
+    
+    @Column(updatable = false)
+    private LocalDateTime commentsModifiedAt;
+    
+    // Denormalized counters, maintained with atomic updates in PostRepository and
+    // LikeBuffer; never written from the entity so a stale save cannot overwrite them
+    @Column(nullable = false, updatable = false)
+    private int likesCount = 0;
+    
+    @Column(nullable = false, updatable = false)
+    private int commentsCount = 0;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL)
     private Set<Comment> comments = new HashSet<>();
     
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL)
     private Set<Like> likes = new HashSet<>();
     
+    @PreUpdate
+    void touch() {
+        modifiedAt = LocalDateTime.now();
+    }
+    
     public enum PrivacyLevel {
         PUBLIC, FRIENDS, PRIVATE
     }
+    
+    public enum MediaStatus {
+        READY, PENDING, FAILED
+    }
 }
\ No newline at end of file
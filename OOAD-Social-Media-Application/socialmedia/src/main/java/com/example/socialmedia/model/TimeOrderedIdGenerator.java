@@ -0,0 +1,34 @@
+package com.example.socialmedia.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.EnumSet;
+
+/**
+ * Hibernate side of {@link TimeOrderedId}. Hibernate obtains generators
+ * through Spring's bean container, so the node id is injected from
+ * {@code ids.node-id}.
+ */
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator {
+
+    private final TimeOrderedIds ids;
+
+    public TimeOrderedIdGenerator(@Value("${ids.node-id:0}") int nodeId) {
+        this.ids = TimeOrderedIds.forNode(nodeId);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return ids.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
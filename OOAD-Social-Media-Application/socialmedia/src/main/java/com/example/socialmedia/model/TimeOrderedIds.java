@@ -0,0 +1,74 @@
+package com.example.socialmedia.model;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free source of time-ordered ids: milliseconds since 2024-01-01 (41
+ * bits), a node id (4 bits) and a per-millisecond sequence (8 bits). Ids from
+ * one node strictly increase and sort by creation time across nodes, to the
+ * millisecond.
+ * <p>
+ * Ids stay below 2^53 so they survive JSON parsing in JavaScript as exact
+ * numbers. When a millisecond's sequence runs out, or the clock steps back,
+ * ids borrow from the next millisecond rather than wait.
+ */
+public final class TimeOrderedIds {
+
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+    static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // One sequence per node and JVM, shared by Hibernate and plain JDBC writers
+    private static final ConcurrentHashMap<Integer, TimeOrderedIds> NODES = new ConcurrentHashMap<>();
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    private final AtomicLong last = new AtomicLong();
+
+    TimeOrderedIds(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public static TimeOrderedIds forNode(int nodeId) {
+        return NODES.computeIfAbsent(nodeId, id -> new TimeOrderedIds(id, System::currentTimeMillis));
+    }
+
+    public long next() {
+        while (true) {
+            long previous = last.get();
+            long millis = clock.getAsLong() - EPOCH_MILLIS;
+            long previousMillis = previous >>> TIMESTAMP_SHIFT;
+            long candidate;
+            if (millis > previousMillis) {
+                candidate = (millis << TIMESTAMP_SHIFT) | nodeBits;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                candidate = previous + 1;
+            } else {
+                candidate = ((previousMillis + 1) << TIMESTAMP_SHIFT) | nodeBits;
+            }
+            if (last.compareAndSet(previous, candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    // Creation time encoded in an id, to the millisecond
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS);
+    }
+
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.socialmedia.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// One post id in a user's materialized home timeline
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(TimelineEntry.Key.class)
+@Table(name = "timeline_entries", indexes = {
+    @Index(name = "idx_timeline_owner_created", columnList = "owner_id, post_created_at, post_id"),
+    @Index(name = "idx_timeline_post", columnList = "post_id")
+})
+public class TimelineEntry {
+    
+    @Id
+    @Column(name = "owner_id")
+    private Long ownerId;
+    
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+    
+    @Column(name = "post_created_at", nullable = false)
+    private LocalDateTime postCreatedAt;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long ownerId;
+        private Long postId;
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.socialmedia.model;
 
 import jakarta.persistence.*;
+import com.example.socialmedia.config.SecondLevelCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import com.example.socialmedia.security.UserIdentityCacheListener;
+import com.example.socialmedia.service.UserSearchListener;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -12,11 +19,14 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USERS_REGION)
 @Table(name = "users")
+@EntityListeners({UserIdentityCacheListener.class, UserSearchListener.class})
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -39,17 +49,27 @@ public class User {
     
     private boolean locked = false;
     
-    @ManyToMany
-    @JoinTable(
-        name = "user_followers",
-        joinColumns = @JoinColumn(name = "user_id"),
-        inverseJoinColumns = @JoinColumn(name = "follower_id")
-    )
-    private Set<User> followers = new HashSet<>();
+    // Validator for conditional GETs, bumped on every change to the profile or its
+    // counters; null on rows that predate it, which fall back to createdAt
+    private LocalDateTime modifiedAt = LocalDateTime.now();
     
-    @ManyToMany(mappedBy = "followers")
-    private Set<User> following = new HashSet<>();
+    // Follow counts, maintained with atomic updates in UserRepository; never
+    // written from the entity so a stale save cannot overwrite them
+    @Column(nullable = false, updatable = false)
+    private int followersCount = 0;
     
+    @Column(nullable = false, updatable = false)
+    private int followingCount = 0;
+    
+    // Relationship collections stay out of equals/hashCode/toString, which
+    // otherwise recurse through the object graph
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private Set<Post> posts = new HashSet<>();
+    
+    @PreUpdate
+    void touch() {
+        modifiedAt = LocalDateTime.now();
+    }
 }
\ No newline at end of file
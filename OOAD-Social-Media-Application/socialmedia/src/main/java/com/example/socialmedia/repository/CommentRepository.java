@@ -1,11 +1,33 @@
 package com.example.socialmedia.repository;
 
 import com.example.socialmedia.model.Comment;
-import com.example.socialmedia.model.Post;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    Page<Comment> findByPostOrderByCreatedAtDesc(Post post, Pageable pageable);
-}
\ No newline at end of file
+    // Keyset pagination over a post's comments, newest first, with authors fetched
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.post.id = :postId " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findLatestByPostId(@Param("postId") Long postId, Limit limit);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.post.id = :postId AND " +
+           "(c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findByPostIdBefore(@Param("postId") Long postId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Limit limit);
+
+    // Returns [id, postId, userId, content, createdAt] rows: the newest perPost comments
+    // of each post, newest first per post, in one windowed query for a whole page of posts
+    @Query(value = "SELECT id, post_id, user_id, content, created_at FROM (" +
+                   "SELECT c.id, c.post_id, c.user_id, c.content, c.created_at, " +
+                   "ROW_NUMBER() OVER (PARTITION BY c.post_id ORDER BY c.created_at DESC, c.id DESC) AS rn " +
+                   "FROM comments c WHERE c.post_id IN (:postIds)) ranked " +
+                   "WHERE rn <= :perPost ORDER BY post_id, rn", nativeQuery = true)
+    List<Object[]> findLatestPerPost(@Param("postIds") Collection<Long> postIds, @Param("perPost") int perPost);
+}
@@ -0,0 +1,58 @@
+package com.example.socialmedia.repository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts single rows from the second-level cache after writes that bypass the
+ * entity, such as atomic counter updates. Those native statements declare
+ * {@link #COUNTER_SPACE} instead of their table, so Hibernate does not drop the
+ * whole region on every like, comment or follow.
+ * <p>
+ * Rows are evicted right away and again once the transaction completes, in
+ * case another transaction cached the old row in between.
+ */
+@Component
+public class EntityCacheEvictor {
+
+    public static final String COUNTER_SPACE = "entity_counters";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public EntityCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evict(Class<?> entityClass, Object id) {
+        evict(entityClass, List.of(id));
+    }
+
+    public void evict(Class<?> entityClass, Collection<?> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<?> evicted = List.copyOf(ids);
+        evictNow(entityClass, evicted);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(entityClass, evicted);
+                }
+            });
+        }
+    }
+
+    private void evictNow(Class<?> entityClass, List<?> ids) {
+        Cache cache = entityManagerFactory.getCache();
+        for (Object id : ids) {
+            cache.evict(entityClass, id);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.socialmedia.repository;
+
+import com.example.socialmedia.model.Follow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FollowRepository extends JpaRepository<Follow, Follow.Key> {
+
+    // Returns 1 when the edge was created and 0 when it already existed
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "follows"))
+    @Query(value = "INSERT IGNORE INTO follows (follower_id, followee_id, created_at) " +
+                   "VALUES (:followerId, :followeeId, :createdAt)", nativeQuery = true)
+    int insert(@Param("followerId") Long followerId, @Param("followeeId") Long followeeId,
+               @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Follow f WHERE f.followerId = :followerId AND f.followeeId = :followeeId")
+    int delete(@Param("followerId") Long followerId, @Param("followeeId") Long followeeId);
+
+    // Primary key lookup, used to authorize FRIENDS posts
+    boolean existsByFollowerIdAndFolloweeId(Long followerId, Long followeeId);
+
+    @Query("SELECT f.followeeId FROM Follow f WHERE f.followerId = :followerId")
+    List<Long> findFolloweeIds(@Param("followerId") Long followerId);
+
+    // Keyset pages of a user's followers, most recent follow first
+    @Query("SELECT f FROM Follow f WHERE f.followeeId = :userId ORDER BY f.createdAt DESC, f.followerId DESC")
+    List<Follow> findLatestFollowers(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT f FROM Follow f WHERE f.followeeId = :userId AND " +
+           "(f.createdAt < :createdAt OR (f.createdAt = :createdAt AND f.followerId < :id)) " +
+           "ORDER BY f.createdAt DESC, f.followerId DESC")
+    List<Follow> findFollowersBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Limit limit);
+
+    // Keyset pages of the users someone follows, most recent follow first
+    @Query("SELECT f FROM Follow f WHERE f.followerId = :userId ORDER BY f.createdAt DESC, f.followeeId DESC")
+    List<Follow> findLatestFollowing(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT f FROM Follow f WHERE f.followerId = :userId AND " +
+           "(f.createdAt < :createdAt OR (f.createdAt = :createdAt AND f.followeeId < :id)) " +
+           "ORDER BY f.createdAt DESC, f.followeeId DESC")
+    List<Follow> findFollowingBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Limit limit);
+}
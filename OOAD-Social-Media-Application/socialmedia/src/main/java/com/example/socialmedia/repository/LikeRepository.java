@@ -4,11 +4,19 @@ import com.example.socialmedia.model.Like;
 import com.example.socialmedia.model.Post;
 import com.example.socialmedia.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LikeRepository extends JpaRepository<Like, Long> {
     Optional<Like> findByUserAndPost(User user, Post post);
     int countByPost(Post post);
     boolean existsByUserAndPost(User user, Post post);
-}
\ No newline at end of file
+    boolean existsByUserIdAndPostId(Long userId, Long postId);
+
+    @Query("SELECT l.post.id FROM Like l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    List<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+}
@@ -0,0 +1,24 @@
+package com.example.socialmedia.repository;
+
+import com.example.socialmedia.model.MediaVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MediaVariantRepository extends JpaRepository<MediaVariant, Long> {
+
+    @Query("SELECT v FROM MediaVariant v WHERE v.postId IN :postIds ORDER BY v.postId, v.originalUrl, v.width")
+    List<MediaVariant> findByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    boolean existsByUrl(String url);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MediaVariant v WHERE v.postId = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+}
@@ -0,0 +1,70 @@
+package com.example.socialmedia.repository;
+
+import com.example.socialmedia.model.Notification;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Notifications are written in batches by NotificationBuffer; these are the reads
+// and the read-state changes, which keep notification_counters in step
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // Keyset pagination over unread notifications, most recently active first
+    @Query("SELECT n FROM Notification n WHERE n.recipientId = :recipientId AND n.read = false " +
+           "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<Notification> findUnread(@Param("recipientId") Long recipientId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipientId = :recipientId AND n.read = false AND " +
+           "(n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+           "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<Notification> findUnreadBefore(@Param("recipientId") Long recipientId,
+                                        @Param("updatedAt") LocalDateTime updatedAt,
+                                        @Param("id") Long id, Limit limit);
+
+    @Query(value = "SELECT unread_count FROM notification_counters WHERE user_id = :userId", nativeQuery = true)
+    Optional<Integer> findUnreadCount(@Param("userId") Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    @Query(value = "UPDATE notifications SET is_read = TRUE WHERE recipient_id = :recipientId AND is_read = FALSE",
+           nativeQuery = true)
+    int markAllRead(@Param("recipientId") Long recipientId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    @Query(value = "UPDATE notifications SET is_read = TRUE " +
+                   "WHERE recipient_id = :recipientId AND id IN (:ids) AND is_read = FALSE", nativeQuery = true)
+    int markRead(@Param("recipientId") Long recipientId, @Param("ids") Collection<Long> ids);
+
+    // Actors of the like and comment notifications about a deleted post
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_actors"))
+    @Query(value = "DELETE FROM notification_actors WHERE notification_id IN (SELECT id FROM notifications " +
+                   "WHERE recipient_id = :recipientId AND type IN ('LIKE', 'COMMENT') AND target_id = :postId)",
+           nativeQuery = true)
+    int deleteActorsForPost(@Param("recipientId") Long recipientId, @Param("postId") Long postId);
+
+    // Like and comment notifications about a deleted post; returns the rows removed
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    @Query(value = "DELETE FROM notifications WHERE recipient_id = :recipientId AND type IN ('LIKE', 'COMMENT') " +
+                   "AND target_id = :postId AND is_read = :read", nativeQuery = true)
+    int deleteForPost(@Param("recipientId") Long recipientId, @Param("postId") Long postId,
+                      @Param("read") boolean read);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_counters"))
+    @Query(value = "UPDATE notification_counters SET unread_count = GREATEST(unread_count - :count, 0) " +
+                   "WHERE user_id = :userId", nativeQuery = true)
+    int decrementUnread(@Param("userId") Long userId, @Param("count") int count);
+}
@@ -3,22 +3,106 @@ package com.example.socialmedia.repository;
 
 import com.example.socialmedia.model.Post;
 import com.example.socialmedia.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface PostRepository extends JpaRepository<Post, Long> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PostRepository extends JpaRepository<Post, Long>, PostRepositoryCustom {
     Page<Post> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
     
-    // Simplified query that just returns all public posts
-    @Query("SELECT p FROM Post p WHERE p.privacyLevel = 'PUBLIC' ORDER BY p.createdAt DESC")
-    Page<Post> findPublicPosts(Pageable pageable);
+    // Keyset pagination over public posts, newest first; no COUNT and no OFFSET
+    @Query("SELECT p FROM Post p WHERE p.privacyLevel = 'PUBLIC' ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findLatestPublicPosts(Limit limit);
+    
+    @Query("SELECT p FROM Post p WHERE p.privacyLevel = 'PUBLIC' AND " +
+           "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findPublicPostsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
     
     // Original query with proper parameter handling
     @Query("SELECT p FROM Post p WHERE p.privacyLevel = 'PUBLIC' OR " +
            "(p.privacyLevel = 'FRIENDS' AND p.user IN :following) OR " +
            "p.user = :user ORDER BY p.createdAt DESC")
     Page<Post> findFeedPosts(@Param("user") User user, @Param("following") java.util.Set<User> following, Pageable pageable);
+
+    // Returns [postId, authorId, createdAt] rows for all of a user's own posts, including private ones
+    @Query("SELECT p.id, p.user.id, p.createdAt FROM Post p WHERE p.user.id = :userId AND " +
+           "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Object[]> findOwnPostKeysBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id, Limit limit);
+
+    // Returns [postId, mediaUrl] rows for every media url of the given posts
+    @Query("SELECT p.id, m FROM Post p JOIN p.mediaUrls m WHERE p.id IN :ids")
+    List<Object[]> findMediaUrlsByPostIds(@Param("ids") Collection<Long> ids);
+
+    // Locks the post row, so a delete waits for the caller's transaction; empty once the post is gone
+    @Query(value = "SELECT id FROM posts WHERE id = :postId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("postId") Long postId);
+
+    @Query("SELECT COUNT(p) > 0 FROM Post p JOIN p.mediaUrls m WHERE m = :url")
+    boolean existsByMediaUrl(@Param("url") String url);
+
+    // Counter updates leave the second-level cache alone; callers evict the post
+    // through EntityCacheEvictor
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = EntityCacheEvictor.COUNTER_SPACE))
+    @Query(value = "UPDATE posts SET likes_count = likes_count + :delta, modified_at = :now WHERE id = :postId",
+           nativeQuery = true)
+    int adjustLikesCount(@Param("postId") Long postId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = EntityCacheEvictor.COUNTER_SPACE))
+    @Query(value = "UPDATE posts SET comments_count = comments_count + :delta, " +
+                   "modified_at = :now, comments_modified_at = :now WHERE id = :postId", nativeQuery = true)
+    int adjustCommentsCount(@Param("postId") Long postId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    // Marks the post changed when something outside the entity changed, such as its renditions
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = EntityCacheEvictor.COUNTER_SPACE))
+    @Query(value = "UPDATE posts SET modified_at = :now WHERE id = :postId", nativeQuery = true)
+    int touch(@Param("postId") Long postId, @Param("now") LocalDateTime now);
+
+    // Returns [authorId, privacyLevel, modifiedAt, authorModifiedAt] for conditional GETs
+    @Query("SELECT u.id, p.privacyLevel, COALESCE(p.modifiedAt, p.createdAt), COALESCE(u.modifiedAt, u.createdAt) " +
+           "FROM Post p JOIN p.user u WHERE p.id = :postId")
+    List<Object[]> findVersionById(@Param("postId") Long postId);
+
+    @Query("SELECT COALESCE(p.commentsModifiedAt, p.createdAt) FROM Post p WHERE p.id = :postId")
+    Optional<LocalDateTime> findCommentsModifiedAtById(@Param("postId") Long postId);
+
+    @Query("SELECT p.id FROM Post p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.id FROM Post p WHERE p.id IN :ids AND (" +
+           "p.likesCount <> (SELECT COUNT(l) FROM Like l WHERE l.post = p) OR " +
+           "p.commentsCount <> (SELECT COUNT(c) FROM Comment c WHERE c.post = p))")
+    List<Long> findIdsWithCounterDrift(@Param("ids") Collection<Long> ids);
+
+    // Recomputes both counters from the source tables in a single statement
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = EntityCacheEvictor.COUNTER_SPACE))
+    @Query(value = "UPDATE posts SET " +
+                   "likes_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = posts.id), " +
+                   "comments_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = posts.id), " +
+                   "modified_at = :now, comments_modified_at = :now " +
+                   "WHERE id IN (:ids)", nativeQuery = true)
+    int recountCounters(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
 }
\ No newline at end of file
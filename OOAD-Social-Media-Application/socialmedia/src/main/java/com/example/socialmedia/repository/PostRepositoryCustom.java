@@ -0,0 +1,13 @@
+package com.example.socialmedia.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface PostRepositoryCustom {
+
+    // Returns [postId, authorId, createdAt] rows: up to perAuthor non-private posts of
+    // each author older than (createdAt, id), newest first per author
+    List<Object[]> findRecentPostKeysByAuthors(Collection<Long> authorIds, LocalDateTime createdAt,
+                                               Long id, int perAuthor);
+}
@@ -0,0 +1,45 @@
+package com.example.socialmedia.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class PostRepositoryImpl implements PostRepositoryCustom {
+
+    private static final String AUTHOR_QUERY =
+            "(SELECT p.id, p.user_id, p.created_at FROM posts p " +
+            "WHERE p.user_id = ?%1$d AND p.privacy_level <> 'PRIVATE' " +
+            "AND (p.created_at < ?%2$d OR (p.created_at = ?%2$d AND p.id < ?%3$d)) " +
+            "ORDER BY p.created_at DESC, p.id DESC LIMIT ?%4$d)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // One index seek per author, combined with UNION ALL into a single round trip
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findRecentPostKeysByAuthors(Collection<Long> authorIds, LocalDateTime createdAt,
+                                                      Long id, int perAuthor) {
+        if (authorIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> parts = new ArrayList<>(authorIds.size());
+        for (int i = 0; i < authorIds.size(); i++) {
+            parts.add(String.format(AUTHOR_QUERY, i + 4, 1, 2, 3));
+        }
+        Query query = entityManager.createNativeQuery(String.join(" UNION ALL ", parts))
+                .setParameter(1, createdAt)
+                .setParameter(2, id)
+                .setParameter(3, perAuthor);
+        int position = 4;
+        for (Long authorId : authorIds) {
+            query.setParameter(position++, authorId);
+        }
+        return query.getResultList();
+    }
+}
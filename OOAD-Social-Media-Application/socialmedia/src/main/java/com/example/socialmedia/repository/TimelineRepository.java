@@ -0,0 +1,97 @@
+package com.example.socialmedia.repository;
+
+import com.example.socialmedia.model.TimelineEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TimelineRepository extends JpaRepository<TimelineEntry, TimelineEntry.Key> {
+
+    boolean existsByOwnerId(Long ownerId);
+
+    @Query("SELECT t FROM TimelineEntry t WHERE t.ownerId = :ownerId " +
+           "ORDER BY t.postCreatedAt DESC, t.postId DESC")
+    List<TimelineEntry> findLatest(@Param("ownerId") Long ownerId, Limit limit);
+
+    @Query("SELECT t FROM TimelineEntry t WHERE t.ownerId = :ownerId AND " +
+           "(t.postCreatedAt < :createdAt OR (t.postCreatedAt = :createdAt AND t.postId < :postId)) " +
+           "ORDER BY t.postCreatedAt DESC, t.postId DESC")
+    List<TimelineEntry> findBefore(@Param("ownerId") Long ownerId, @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("postId") Long postId, Limit limit);
+
+    // Follower ids of an author in id order, for fanning out in chunks
+    @Query(value = "SELECT f.follower_id FROM follows f WHERE f.followee_id = :authorId " +
+                   "AND f.follower_id > :afterId ORDER BY f.follower_id LIMIT :limit", nativeQuery = true)
+    List<Long> findFollowerIdsAfter(@Param("authorId") Long authorId, @Param("afterId") Long afterId,
+                                    @Param("limit") int limit);
+
+    // Inserts skip entries that already exist, e.g. when a follow backfill raced the fan-out
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = "INSERT IGNORE INTO timeline_entries (owner_id, post_id, post_created_at) " +
+                   "VALUES (:ownerId, :postId, :createdAt)", nativeQuery = true)
+    int insert(@Param("ownerId") Long ownerId, @Param("postId") Long postId, @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = "INSERT IGNORE INTO timeline_entries (owner_id, post_id, post_created_at) " +
+                   "SELECT f.follower_id, :postId, :createdAt FROM follows f " +
+                   "WHERE f.followee_id = :authorId AND f.follower_id IN (:followerIds)", nativeQuery = true)
+    int fanOut(@Param("authorId") Long authorId, @Param("followerIds") Collection<Long> followerIds,
+               @Param("postId") Long postId, @Param("createdAt") LocalDateTime createdAt);
+
+    // Copies an author's most recent non-private posts into one owner's timeline. Follow
+    // events are handled out of order, so this is a no-op once the owner has unfollowed again
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = "INSERT IGNORE INTO timeline_entries (owner_id, post_id, post_created_at) " +
+                   "SELECT :ownerId, p.id, p.created_at FROM posts p " +
+                   "WHERE p.user_id = :authorId AND p.privacy_level <> 'PRIVATE' " +
+                   "AND EXISTS (SELECT 1 FROM follows f WHERE f.follower_id = :ownerId AND f.followee_id = :authorId) " +
+                   "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit", nativeQuery = true)
+    int backfill(@Param("ownerId") Long ownerId, @Param("authorId") Long authorId, @Param("limit") int limit);
+
+    // The reverse of backfill, and likewise a no-op once the owner follows the author again
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = "DELETE FROM timeline_entries WHERE owner_id = :ownerId " +
+                   "AND post_id IN (SELECT p.id FROM posts p WHERE p.user_id = :authorId) " +
+                   "AND NOT EXISTS (SELECT 1 FROM follows f WHERE f.follower_id = :ownerId AND f.followee_id = :authorId)",
+           nativeQuery = true)
+    int retractAuthor(@Param("ownerId") Long ownerId, @Param("authorId") Long authorId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.postId = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+
+    @Query("SELECT t.ownerId FROM TimelineEntry t GROUP BY t.ownerId HAVING COUNT(t) > :capacity")
+    List<Long> findOwnersOverCapacity(@Param("capacity") long capacity);
+
+    @Query("SELECT t FROM TimelineEntry t WHERE t.ownerId = :ownerId " +
+           "ORDER BY t.postCreatedAt DESC, t.postId DESC")
+    List<TimelineEntry> findPageByOwner(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    // Deletes the given entry and everything older than it
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.ownerId = :ownerId AND " +
+           "(t.postCreatedAt < :createdAt OR (t.postCreatedAt = :createdAt AND t.postId <= :postId))")
+    int deleteFrom(@Param("ownerId") Long ownerId, @Param("createdAt") LocalDateTime createdAt,
+                   @Param("postId") Long postId);
+}
@@ -1,7 +1,16 @@
 package com.example.socialmedia.repository;
 
 import com.example.socialmedia.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -9,4 +18,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    // Counter updates leave the second-level cache alone; callers evict the user
+    // through EntityCacheEvictor
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = EntityCacheEvictor.COUNTER_SPACE))
+    @Query(value = "UPDATE users SET followers_count = followers_count + :delta, modified_at = :now WHERE id = :userId",
+           nativeQuery = true)
+    int adjustFollowersCount(@Param("userId") Long userId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = EntityCacheEvictor.COUNTER_SPACE))
+    @Query(value = "UPDATE users SET following_count = following_count + :delta, modified_at = :now WHERE id = :userId",
+           nativeQuery = true)
+    int adjustFollowingCount(@Param("userId") Long userId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Query("SELECT COALESCE(u.modifiedAt, u.createdAt) FROM User u WHERE u.id = :userId")
+    Optional<LocalDateTime> findModifiedAtById(@Param("userId") Long userId);
+
+    // Recomputes both follow counters of every user from the follows table
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET " +
+                   "followers_count = (SELECT COUNT(*) FROM follows f WHERE f.followee_id = users.id), " +
+                   "following_count = (SELECT COUNT(*) FROM follows f WHERE f.follower_id = users.id), " +
+                   "modified_at = :now", nativeQuery = true)
+    int recountFollowCounters(@Param("now") LocalDateTime now);
 }
\ No newline at end of file
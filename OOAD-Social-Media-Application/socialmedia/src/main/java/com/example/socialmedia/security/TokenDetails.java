@@ -0,0 +1,12 @@
+package com.example.socialmedia.security;
+
+import java.time.Instant;
+import java.util.List;
+
+// Verified contents of a JWT; userId and roles are null for tokens issued before they were embedded
+public record TokenDetails(String username, Instant expiresAt, Long userId, List<String> roles) {
+
+    public boolean isSelfContained() {
+        return userId != null && roles != null;
+    }
+}
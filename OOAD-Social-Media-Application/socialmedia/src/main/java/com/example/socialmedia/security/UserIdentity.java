@@ -0,0 +1,7 @@
+package com.example.socialmedia.security;
+
+import java.util.List;
+
+// Immutable snapshot of the user fields needed to authenticate a request
+public record UserIdentity(Long id, String username, String passwordHash, boolean locked, List<String> roles) {
+}
@@ -0,0 +1,82 @@
+package com.example.socialmedia.security;
+
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Size- and TTL-bounded cache of {@link UserIdentity} records keyed by
+ * username, so authenticating a request and resolving the current user cost
+ * one repository lookup per TTL instead of several per request. Entries are
+ * dropped by {@link UserIdentityCacheListener} whenever a user row changes.
+ */
+@Component
+public class UserIdentityCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserIdentity> cache;
+
+    public UserIdentityCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                             @Value("${security.user-cache.max-size:10000}") long maxSize,
+                             @Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userIdentity");
+    }
+
+    public UserIdentity get(String username) {
+        UserIdentity identity = cache.get(username, this::load);
+        if (identity == null) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+        return identity;
+    }
+
+    // Drops the entry now and again after commit, so a concurrent reader cannot re-cache the old row
+    public void invalidate(String username) {
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private UserIdentity load(String username) {
+        return userRepository.findByUsername(username)
+                .map(UserIdentityCache::toIdentity)
+                .orElse(null);
+    }
+
+    private static UserIdentity toIdentity(User user) {
+        return new UserIdentity(user.getId(), user.getUsername(), user.getPassword(), user.isLocked(),
+                List.of("ROLE_USER"));
+    }
+}
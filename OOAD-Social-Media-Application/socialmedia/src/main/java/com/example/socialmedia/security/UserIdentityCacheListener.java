@@ -0,0 +1,25 @@
+package com.example.socialmedia.security;
+
+import com.example.socialmedia.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+// Invalidates cached identities on any user update (lock, password change) or deletion
+@Component
+public class UserIdentityCacheListener {
+
+    private final UserIdentityCache userIdentityCache;
+
+    // Lazy: the listener is created with the EntityManagerFactory, which the cache's repository needs
+    public UserIdentityCacheListener(@Lazy UserIdentityCache userIdentityCache) {
+        this.userIdentityCache = userIdentityCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        userIdentityCache.invalidate(user.getUsername());
+    }
+}
@@ -59,7 +59,7 @@ public class AuthService {
                 .authorities("ROLE_USER")
                 .build();
 
-        String token = jwtUtil.generateToken(userDetails);
+        String token = jwtUtil.generateToken(userDetails, savedUser.getId());
 
         // Map user to DTO
         UserDTO userDTO = new UserDTO();
@@ -97,7 +97,7 @@ public class AuthService {
 
             // Generate JWT token
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String token = jwtUtil.generateToken(userDetails);
+            String token = jwtUtil.generateToken(userDetails, user.getId());
 
             // Map user to DTO
             UserDTO userDTO = new UserDTO();
@@ -106,8 +106,8 @@ public class AuthService {
             userDTO.setEmail(user.getEmail());
             userDTO.setProfilePicture(user.getProfilePicture());
             userDTO.setBio(user.getBio());
-            userDTO.setFollowersCount(user.getFollowers().size());
-            userDTO.setFollowingCount(user.getFollowing().size());
+            userDTO.setFollowersCount(user.getFollowersCount());
+            userDTO.setFollowingCount(user.getFollowingCount());
 
             return new AuthResponse(token, userDTO);
         } catch (BadCredentialsException e) {
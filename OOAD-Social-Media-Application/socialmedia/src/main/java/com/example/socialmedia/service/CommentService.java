@@ -2,40 +2,77 @@ package com.example.socialmedia.service;
 
 import com.example.socialmedia.dto.CommentDTO;
 import com.example.socialmedia.dto.CommentRequest;
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.PageCursor;
 import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.event.CommentCreatedEvent;
+import com.example.socialmedia.event.CommentDeletedEvent;
 import com.example.socialmedia.exception.ResourceNotFoundException;
 import com.example.socialmedia.exception.UnauthorizedException;
 import com.example.socialmedia.model.Comment;
 import com.example.socialmedia.model.Post;
 import com.example.socialmedia.model.User;
 import com.example.socialmedia.repository.CommentRepository;
+import com.example.socialmedia.repository.EntityCacheEvictor;
 import com.example.socialmedia.repository.PostRepository;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class CommentService {
 
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserService userService;
+    private final TrendingService trendingService;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CommentService(CommentRepository commentRepository, PostRepository postRepository, UserService userService) {
+    public CommentService(CommentRepository commentRepository, PostRepository postRepository, UserService userService,
+                          TrendingService trendingService, EntityCacheEvictor entityCacheEvictor,
+                          ApplicationEventPublisher eventPublisher) {
         this.commentRepository = commentRepository;
         this.postRepository = postRepository;
         this.userService = userService;
+        this.trendingService = trendingService;
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.eventPublisher = eventPublisher;
     }
 
-    public Page<CommentDTO> getCommentsByPostId(Long postId, Pageable pageable) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
+    @Transactional(readOnly = true)
+    public CursorPage<CommentDTO> getCommentsByPostId(Long postId, String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found with id: " + postId);
+        }
         
-        Page<Comment> comments = commentRepository.findByPostOrderByCreatedAtDesc(post, pageable);
+        // Fetch one extra row to know whether another page exists
+        List<Comment> comments = after == null
+                ? commentRepository.findLatestByPostId(postId, Limit.of(pageSize + 1))
+                : commentRepository.findByPostIdBefore(postId, after.createdAt(), after.id(), Limit.of(pageSize + 1));
         
-        return comments.map(this::mapToDTO);
+        return CursorPage.fromRows(comments, pageSize, comment -> new PageCursor(comment.getCreatedAt(), comment.getId()),
+                page -> page.stream().map(this::mapToDTO).toList());
     }
 
+    // Comment pages change only when a comment is added or removed; author
+    // summaries inside them are refreshed with the next such change
+    @Transactional(readOnly = true)
+    public ContentVersion getCommentsVersion(Long postId) {
+        LocalDateTime modifiedAt = postRepository.findCommentsModifiedAtById(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
+        return ContentVersion.of("c" + postId, modifiedAt);
+    }
+
+    @Transactional
     public CommentDTO createComment(Long postId, CommentRequest commentRequest, String username) {
         User currentUser = userService.getCurrentUser(username);
         Post post = postRepository.findById(postId)
@@ -53,10 +90,19 @@ public class CommentService {
         comment.setPost(post);
         
         Comment savedComment = commentRepository.save(comment);
+        // Mapped first: the counter update clears the persistence context, which
+        // would leave the author's lazy reference unloadable
+        CommentDTO commentDTO = mapToDTO(savedComment);
+        trendingService.recordComment(post);
+        postRepository.adjustCommentsCount(postId, 1, LocalDateTime.now());
+        entityCacheEvictor.evict(Post.class, postId);
+        eventPublisher.publishEvent(new CommentCreatedEvent(postId, post.getUser().getId(), post.getPrivacyLevel(),
+                commentDTO));
         
-        return mapToDTO(savedComment);
+        return commentDTO;
     }
 
+    @Transactional
     public void deleteComment(Long commentId, String username) {
         User currentUser = userService.getCurrentUser(username);
         Comment comment = commentRepository.findById(commentId)
@@ -67,7 +113,13 @@ public class CommentService {
             throw new UnauthorizedException("You are not authorized to delete this comment");
         }
         
+        Post post = comment.getPost();
+        CommentDeletedEvent event = new CommentDeletedEvent(commentId, post.getId(), post.getUser().getId(),
+                post.getPrivacyLevel());
         commentRepository.delete(comment);
+        postRepository.adjustCommentsCount(post.getId(), -1, LocalDateTime.now());
+        entityCacheEvictor.evict(Post.class, post.getId());
+        eventPublisher.publishEvent(event);
     }
 
     private CommentDTO mapToDTO(Comment comment) {
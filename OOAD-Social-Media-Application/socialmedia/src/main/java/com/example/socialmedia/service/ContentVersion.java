@@ -0,0 +1,28 @@
+package com.example.socialmedia.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.StringJoiner;
+
+/**
+ * Validator for a conditional GET: a strong ETag built from everything the
+ * response depends on. There is deliberately no Last-Modified time. It has
+ * one-second granularity and cannot express state that is not a timestamp,
+ * such as likes still waiting in the buffer, so If-Modified-Since would
+ * answer 304 for responses that have changed.
+ */
+public record ContentVersion(String etag) {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    static ContentVersion of(Object... parts) {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        for (Object part : parts) {
+            // Microseconds, the precision the timestamps are stored with
+            etag.add(part instanceof LocalDateTime time
+                    ? Long.toString(ChronoUnit.MICROS.between(EPOCH, time), 36)
+                    : String.valueOf(part));
+        }
+        return new ContentVersion(etag.toString());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.PageCursor;
+
+import java.time.LocalDateTime;
+
+public record FeedItem(Long postId, Long authorId, LocalDateTime createdAt) {
+
+    public PageCursor cursor() {
+        return new PageCursor(createdAt, postId);
+    }
+
+    // Newest first, ties broken by the higher id, matching the feed ordering
+    public boolean isNewerThan(FeedItem other) {
+        int byTime = createdAt.compareTo(other.createdAt);
+        return byTime != 0 ? byTime > 0 : postId > other.postId;
+    }
+}
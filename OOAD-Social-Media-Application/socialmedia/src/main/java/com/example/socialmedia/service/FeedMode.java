@@ -0,0 +1,9 @@
+package com.example.socialmedia.service;
+
+// How getFeed assembles the home feed
+public enum FeedMode {
+    // Read the precomputed fan-out-on-write timeline
+    TIMELINE,
+    // Merge the followees' recent posts at read time
+    PULL
+}
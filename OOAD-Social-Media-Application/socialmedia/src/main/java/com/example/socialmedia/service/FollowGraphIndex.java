@@ -0,0 +1,305 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.event.FollowChangedEvent;
+import com.example.socialmedia.repository.FollowRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the follows table, holding for every user the ids they
+ * follow as a sorted {@code long[]}. Lists are copy-on-write: a follow or
+ * unfollow swaps in a new array, so readers never lock and never see a list
+ * being modified. Only outgoing edges are kept; those lists stay short, while
+ * follower lists of popular accounts would make every copy expensive, and
+ * follower counts are already maintained on the users table.
+ * <p>
+ * The index is bulk-loaded once the application is ready and rebuilt
+ * periodically to pick up follows written by other instances. Until the first
+ * load finishes, queries fall back to the database.
+ */
+@Component
+public class FollowGraphIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    // Rough HotSpot sizes with compressed oops: array header, map node plus boxed key and table slot
+    private static final long ARRAY_HEADER_BYTES = 16;
+    private static final long ENTRY_OVERHEAD_BYTES = 32 + 16 + 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FollowRepository followRepository;
+    private final int loadBatchSize;
+
+    private volatile Map<Long, long[]> following = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile long edgeCount;
+
+    // Changes seen while a load is running, replayed onto the loaded copy; guarded by this
+    private List<FollowChangedEvent> pending;
+
+    public FollowGraphIndex(JdbcTemplate jdbcTemplate, FollowRepository followRepository, MeterRegistry meterRegistry,
+                            @Value("${follow-graph.load-batch-size:50000}") int loadBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.followRepository = followRepository;
+        this.loadBatchSize = loadBatchSize;
+        Gauge.builder("follow.graph.edges", this, FollowGraphIndex::edgeCount)
+                .description("Follow edges held in memory")
+                .register(meterRegistry);
+        Gauge.builder("follow.graph.bytes", this, FollowGraphIndex::estimatedBytes)
+                .description("Estimated heap used by the follow graph index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Sorted ids the user follows; callers must not modify the array
+    public long[] following(Long userId) {
+        if (!ready) {
+            return followRepository.findFolloweeIds(userId).stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        return following.getOrDefault(userId, EMPTY);
+    }
+
+    public List<Long> followingIds(Long userId) {
+        return Arrays.stream(following(userId)).boxed().toList();
+    }
+
+    public boolean follows(Long followerId, Long followeeId) {
+        return Arrays.binarySearch(following(followerId), followeeId) >= 0;
+    }
+
+    public int followingCount(Long userId) {
+        return following(userId).length;
+    }
+
+    // Ids followed by both users, in ascending order
+    public long[] commonFollowing(Long userId, Long otherUserId) {
+        return intersect(following(userId), following(otherUserId));
+    }
+
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    public int userCount() {
+        return following.size();
+    }
+
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (long[] list : following.values()) {
+            bytes += ENTRY_OVERHEAD_BYTES + ARRAY_HEADER_BYTES + 8L * list.length;
+        }
+        return bytes;
+    }
+
+    public long bytesPerMillionEdges() {
+        long edges = edgeCount;
+        return edges == 0 ? 0 : estimatedBytes() * 1_000_000L / edges;
+    }
+
+    // Runs synchronously after commit, so the index reflects a follow before the request returns
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onFollowChanged(FollowChangedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        }
+        edgeCount += apply(following, event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${follow-graph.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${follow-graph.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            Map<Long, long[]> loaded = load();
+            synchronized (this) {
+                for (FollowChangedEvent event : pending) {
+                    apply(loaded, event);
+                }
+                following = loaded;
+                edgeCount = loaded.values().stream().mapToLong(list -> list.length).sum();
+                ready = true;
+            }
+            System.out.println("Loaded follow graph: " + edgeCount + " edges for " + loaded.size() + " users in "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms, about " + bytesPerMillionEdges() / (1024 * 1024)
+                    + "MB per million edges");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to load follow graph: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+
+    // Reads the table in primary key order, in batches, so the lists come out already sorted
+    private Map<Long, long[]> load() {
+        Builder builder = new Builder();
+        long afterFollower = 0;
+        long afterFollowee = 0;
+        while (true) {
+            List<long[]> rows = jdbcTemplate.query(
+                    "SELECT follower_id, followee_id FROM follows " +
+                    "WHERE follower_id > ? OR (follower_id = ? AND followee_id > ?) " +
+                    "ORDER BY follower_id, followee_id LIMIT ?",
+                    (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)},
+                    afterFollower, afterFollower, afterFollowee, loadBatchSize);
+            for (long[] row : rows) {
+                builder.add(row[0], row[1]);
+            }
+            if (rows.size() < loadBatchSize) {
+                return builder.build();
+            }
+            long[] last = rows.get(rows.size() - 1);
+            afterFollower = last[0];
+            afterFollowee = last[1];
+        }
+    }
+
+    // Swaps in a prebuilt graph; lets benchmarks size and query the index without a database
+    synchronized void replaceWith(Map<Long, long[]> graph) {
+        following = graph;
+        edgeCount = graph.values().stream().mapToLong(list -> list.length).sum();
+        ready = true;
+    }
+
+    // Returns the change in edge count
+    private static int apply(Map<Long, long[]> graph, FollowChangedEvent event) {
+        int[] delta = new int[1];
+        graph.compute(event.followerId(), (followerId, list) -> {
+            long[] current = list != null ? list : EMPTY;
+            long[] updated = event.following()
+                    ? insert(current, event.followeeId())
+                    : remove(current, event.followeeId());
+            delta[0] = updated.length - current.length;
+            return updated.length == 0 ? null : updated;
+        });
+        return delta[0];
+    }
+
+    static long[] insert(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index >= 0) {
+            return sorted;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, insertAt);
+        copy[insertAt] = value;
+        System.arraycopy(sorted, insertAt, copy, insertAt + 1, sorted.length - insertAt);
+        return copy;
+    }
+
+    static long[] remove(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return sorted;
+        }
+        long[] copy = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, copy, 0, index);
+        System.arraycopy(sorted, index + 1, copy, index, sorted.length - index - 1);
+        return copy;
+    }
+
+    // Linear merge for similar sizes; binary searches from the shorter list when one is much longer
+    static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            long[] swap = a;
+            a = b;
+            b = swap;
+        }
+        long[] out = new long[a.length];
+        int count = 0;
+        if ((long) a.length * 32 < b.length) {
+            int from = 0;
+            for (long value : a) {
+                int index = Arrays.binarySearch(b, from, b.length, value);
+                if (index >= 0) {
+                    out[count++] = value;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    out[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    /**
+     * Collects edges sorted by (follower, followee) into trimmed lists. Used by
+     * the loader and by benchmarks that build large graphs without a database.
+     */
+    static class Builder {
+        private final Map<Long, long[]> graph = new ConcurrentHashMap<>();
+        private long currentFollower = -1;
+        private long[] buffer = new long[16];
+        private int size;
+
+        void add(long followerId, long followeeId) {
+            if (followerId != currentFollower) {
+                flush();
+                currentFollower = followerId;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = followeeId;
+        }
+
+        Map<Long, long[]> build() {
+            flush();
+            return graph;
+        }
+
+        private void flush() {
+            if (size > 0) {
+                graph.put(currentFollower, Arrays.copyOf(buffer, size));
+                size = 0;
+            }
+        }
+    }
+}
@@ -1,45 +1,62 @@
 package com.example.socialmedia.service;
 
-import org.springframework.http.*;
+import com.example.socialmedia.exception.BadRequestException;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.Map;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class ImageUploadService {
 
-    private static final String IMGUR_UPLOAD_URL = "https://api.imgur.com/3/image";
-    private static final String CLIENT_ID = "aeb10ecbf403ab7";
+    private static final Pattern DATA_URI_PREFIX = Pattern.compile("^data:(image/[^;]+);base64,");
+    // Raster formats only: an SVG can carry script, which would run on the API origin when served
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/webp");
 
-    private final RestTemplate restTemplate;
+    private final MediaStore mediaStore;
 
-    public ImageUploadService() {
-        // Use Spring's default RestTemplate which doesn't require HttpClient5
-        this.restTemplate = new RestTemplate();
+    public ImageUploadService(MediaStore mediaStore) {
+        this.mediaStore = mediaStore;
     }
 
     public String uploadImage(String base64Image) throws IOException {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        headers.set("Authorization", "Client-ID " + CLIENT_ID);
-
-        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-        base64Image = base64Image.replaceFirst("^data:image/[^;]+;base64,", "");
-
-        body.add("image", base64Image);
+        String contentType = null;
+        Matcher prefix = DATA_URI_PREFIX.matcher(base64Image);
+        if (prefix.find()) {
+            contentType = prefix.group(1);
+            base64Image = base64Image.substring(prefix.end());
+        }
 
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
+        byte[] image;
+        try {
+            image = Base64.getMimeDecoder().decode(base64Image);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Image is not valid base64", e);
+        }
+        if (contentType == null) {
+            contentType = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(image));
+        }
+        return mediaStore.store(new ByteArrayInputStream(image), checkContentType(contentType));
+    }
 
-        ResponseEntity<Map> response = restTemplate.postForEntity(IMGUR_UPLOAD_URL, request, Map.class);
+    // Streams an already binary image (e.g. a multipart part) to the store without buffering it
+    public String upload(InputStream content, String contentType) throws IOException {
+        return mediaStore.store(content, checkContentType(contentType));
+    }
 
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return (String) ((Map) response.getBody().get("data")).get("link");
-        } else {
-            throw new RuntimeException("Failed to upload image to Imgur");
+    // The type is whatever the client claims, so it is checked against an allow-list rather than a prefix
+    public static String checkContentType(String contentType) {
+        String normalized = contentType != null ? contentType.trim().toLowerCase(Locale.ROOT) : null;
+        if (normalized == null || !SUPPORTED_TYPES.contains(normalized)) {
+            throw new BadRequestException("Unsupported media type: " + contentType);
         }
+        return normalized;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package com.example.socialmedia.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.Map;
+
+@Service
+@ConditionalOnProperty(name = "media.store", havingValue = "imgur", matchIfMissing = true)
+public class ImgurMediaStore implements MediaStore {
+
+    private static final String IMGUR_UPLOAD_URL = "https://api.imgur.com/3/image";
+    private static final String CLIENT_ID = "aeb10ecbf403ab7";
+    // Calls run on bounded pools, so a stalled Imgur must not hold a worker forever
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(30);
+
+    private final RestTemplate restTemplate;
+    // Anonymous uploads can only be deleted with the deletehash Imgur returns on upload,
+    // which is not part of the link; it is kept for a day, long enough to undo a failed post
+    private final Cache<String, String> deleteHashes = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    public ImgurMediaStore() {
+        // Use Spring's default RestTemplate which doesn't require HttpClient5; chunked so uploads are not buffered
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setChunkSize(64 * 1024);
+        requestFactory.setConnectTimeout(CONNECT_TIMEOUT);
+        requestFactory.setReadTimeout(READ_TIMEOUT);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @Override
+    public String store(InputStream content, String contentType) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        headers.set("Authorization", "Client-ID " + CLIENT_ID);
+
+        // Sent as a binary part straight from the stream rather than as a base64 string
+        HttpHeaders partHeaders = new HttpHeaders();
+        partHeaders.setContentType(contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("image", new HttpEntity<>(new InputStreamResource(content) {
+            @Override
+            public String getFilename() {
+                return "upload";
+            }
+
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+        }, partHeaders));
+
+        HttpEntity<MultiValueMap<String, Object>> request = new HttpEntity<>(body, headers);
+
+        ResponseEntity<Map> response = restTemplate.postForEntity(IMGUR_UPLOAD_URL, request, Map.class);
+
+        if (response.getStatusCode().is2xxSuccessful()) {
+            Map data = (Map) response.getBody().get("data");
+            String link = (String) data.get("link");
+            if (data.get("deletehash") instanceof String deleteHash) {
+                deleteHashes.put(link, deleteHash);
+            }
+            return link;
+        } else {
+            throw new RuntimeException("Failed to upload image to Imgur");
+        }
+    }
+
+    @Override
+    public InputStream open(String url) throws IOException {
+        URLConnection connection = URI.create(url).toURL().openConnection();
+        connection.setConnectTimeout((int) CONNECT_TIMEOUT.toMillis());
+        connection.setReadTimeout((int) READ_TIMEOUT.toMillis());
+        return connection.getInputStream();
+    }
+
+    @Override
+    public void delete(String url) throws IOException {
+        String deleteHash = deleteHashes.asMap().remove(url);
+        if (deleteHash == null) {
+            System.err.println("No Imgur deletehash known for " + url + ", leaving it in place");
+            return;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Client-ID " + CLIENT_ID);
+        restTemplate.exchange(IMGUR_UPLOAD_URL + "/" + deleteHash, HttpMethod.DELETE, new HttpEntity<>(headers), Map.class);
+    }
+}
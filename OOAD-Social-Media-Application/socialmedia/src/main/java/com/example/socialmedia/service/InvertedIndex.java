@@ -0,0 +1,312 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.ScoreCursor;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index from terms to id-sorted postings, with a small
+ * per-document payload used to filter hits (e.g. post visibility). Terms live
+ * in a sorted map so a prefix is a range scan. Queries match documents
+ * containing every term, drive from the rarest term and probe the others by
+ * binary search, and rank by a saturated tf-idf. The corpus statistics behind
+ * idf are pinned in the paging cursor, so later pages of a search are scored
+ * exactly like its first page however many documents arrive in between.
+ * <p>
+ * Writes are serialized on the index; queries do not lock the index and only
+ * briefly lock individual postings lists.
+ */
+public class InvertedIndex<M> {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_TERM_LENGTH = 40;
+
+    // Caps the work a short prefix such as "a" can cause; the most frequent expansions are kept
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+            .thenComparingLong(Hit::id);
+
+    private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, Doc<M>> docs = new ConcurrentHashMap<>();
+
+    public record Hit(long id, double score, Statistics statistics) {
+        public ScoreCursor cursor() {
+            return new ScoreCursor(score, id, statistics.docCount(), statistics.documentFrequencies());
+        }
+    }
+
+    // The numbers one search is scored with, shared by all of its hits
+    public record Statistics(int docCount, Map<String, Integer> documentFrequencies) {
+    }
+
+    // Terms are canonical strings shared with the term map, and sorted
+    private record Doc<T>(String[] terms, int[] frequencies, T meta) {
+    }
+
+    // Lower-cased, accent-folded words with their frequencies, in term order
+    public static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> frequencies = new TreeMap<>();
+        addTokens(frequencies, text, 1);
+        return frequencies;
+    }
+
+    public static void addTokens(Map<String, Integer> frequencies, String text, int weight) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        for (String token : queryTerms(text)) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+    }
+
+    public static List<String> queryTerms(String text) {
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+            }
+        }
+        return tokens;
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    public synchronized void put(long id, Map<String, Integer> frequencies, M meta) {
+        Doc<M> old = docs.get(id);
+        String[] newTerms = frequencies.keySet().toArray(String[]::new);
+        int[] newFrequencies = frequencies.values().stream().mapToInt(Integer::intValue).toArray();
+        if (old != null && Arrays.equals(old.terms(), newTerms) && Arrays.equals(old.frequencies(), newFrequencies)) {
+            docs.put(id, new Doc<>(old.terms(), old.frequencies(), meta));
+            return;
+        }
+        if (old != null) {
+            removePostings(id, old);
+        }
+        for (int i = 0; i < newTerms.length; i++) {
+            Postings postings = terms.computeIfAbsent(newTerms[i], Postings::new);
+            postings.add(id, newFrequencies[i]);
+            newTerms[i] = postings.term;
+        }
+        docs.put(id, new Doc<>(newTerms, newFrequencies, meta));
+    }
+
+    public synchronized void remove(long id) {
+        Doc<M> old = docs.remove(id);
+        if (old != null) {
+            removePostings(id, old);
+        }
+    }
+
+    private void removePostings(long id, Doc<M> doc) {
+        for (String term : doc.terms()) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(id) == 0) {
+                terms.remove(term, postings);
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} visible hits ranked after {@code after}. With
+     * {@code prefixLast} the last query term also matches longer terms, for
+     * search-as-you-type.
+     */
+    public List<Hit> search(List<String> queryTerms, boolean prefixLast, Predicate<M> visible,
+                            ScoreCursor after, int limit) {
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        boolean pinned = after != null && after.pinsStatistics();
+        int docCount = pinned ? after.docCount() : Math.max(docs.size(), 1);
+        List<List<Postings>> groups = new ArrayList<>(queryTerms.size());
+        for (int i = 0; i < queryTerms.size(); i++) {
+            boolean prefix = prefixLast && i == queryTerms.size() - 1;
+            List<Postings> group = pinned && prefix
+                    ? resolvePinned(queryTerms.get(i), after.documentFrequencies())
+                    : resolve(queryTerms.get(i), prefix);
+            if (group.isEmpty()) {
+                return List.of();
+            }
+            groups.add(group);
+        }
+
+        // idf per term, from the pinned frequencies when paging; terms new since the first page use their own
+        Map<String, Integer> documentFrequencies = new HashMap<>();
+        double[][] idf = new double[groups.size()][];
+        for (int g = 0; g < groups.size(); g++) {
+            List<Postings> group = groups.get(g);
+            idf[g] = new double[group.size()];
+            for (int t = 0; t < group.size(); t++) {
+                Postings postings = group.get(t);
+                int df = Math.max(1, pinned
+                        ? after.documentFrequencies().getOrDefault(postings.term, postings.size())
+                        : postings.size());
+                documentFrequencies.put(postings.term, df);
+                idf[g][t] = Math.log(1 + (double) docCount / df);
+            }
+        }
+        Statistics statistics = new Statistics(docCount, Map.copyOf(documentFrequencies));
+
+        List<Postings> driver = groups.stream()
+                .min(Comparator.comparingLong(group -> group.stream().mapToLong(Postings::size).sum()))
+                .orElseThrow();
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        for (long id : candidateIds(driver)) {
+            Doc<M> doc = docs.get(id);
+            if (doc == null || !visible.test(doc.meta())) {
+                continue;
+            }
+            double score = score(id, groups, idf);
+            if (score <= 0) {
+                continue;
+            }
+            Hit hit = new Hit(id, score, statistics);
+            if (after != null && !hit.cursor().isAfter(after)) {
+                continue;
+            }
+            best.offer(hit);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(WORST_FIRST.reversed());
+        return ranked;
+    }
+
+    private List<Postings> resolve(String term, boolean prefix) {
+        if (!prefix) {
+            Postings postings = terms.get(term);
+            return postings == null ? List.of() : List.of(postings);
+        }
+        List<Postings> matches = new ArrayList<>(terms.subMap(term, true, term + Character.MAX_VALUE, true).values());
+        if (matches.size() <= MAX_PREFIX_EXPANSIONS) {
+            return matches;
+        }
+        // Sizes are read once, since postings can change while they are being sorted
+        record Sized(Postings postings, int size) {
+        }
+        return matches.stream()
+                .map(postings -> new Sized(postings, postings.size()))
+                .sorted(Comparator.comparingInt(Sized::size).reversed())
+                .limit(MAX_PREFIX_EXPANSIONS)
+                .map(Sized::postings)
+                .toList();
+    }
+
+    // Later pages expand a prefix to the same terms as the first page did
+    private List<Postings> resolvePinned(String prefix, Map<String, Integer> documentFrequencies) {
+        List<Postings> matches = new ArrayList<>();
+        for (String term : documentFrequencies.keySet()) {
+            Postings postings = term.startsWith(prefix) ? terms.get(term) : null;
+            if (postings != null) {
+                matches.add(postings);
+            }
+        }
+        return matches;
+    }
+
+    // Sorted, distinct ids from the driving group's postings
+    private long[] candidateIds(List<Postings> group) {
+        if (group.size() == 1) {
+            return group.get(0).ids();
+        }
+        return group.stream().flatMapToLong(postings -> Arrays.stream(postings.ids())).sorted().distinct().toArray();
+    }
+
+    // Zero when any term group does not match; a prefix group scores its best expansion
+    private double score(long id, List<List<Postings>> groups, double[][] idf) {
+        double total = 0;
+        for (int g = 0; g < groups.size(); g++) {
+            List<Postings> group = groups.get(g);
+            double best = 0;
+            for (int t = 0; t < group.size(); t++) {
+                int tf = group.get(t).frequency(id);
+                if (tf > 0) {
+                    best = Math.max(best, idf[g][t] * tf / (tf + 1.2));
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // Ids in ascending order with their term frequencies; new ids usually append at the end
+    private static final class Postings {
+        private final String term;
+        private long[] ids = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        synchronized void add(long id, int frequency) {
+            int index = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                frequencies[index] = frequency;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            frequencies[insertAt] = frequency;
+            size++;
+        }
+
+        // Returns the remaining size
+        synchronized int remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+                size--;
+            }
+            return size;
+        }
+
+        synchronized int frequency(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? frequencies[index] : 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
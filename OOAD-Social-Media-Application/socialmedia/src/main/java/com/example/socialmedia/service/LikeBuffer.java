@@ -0,0 +1,375 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.event.PostDeletedEvent;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.TimeOrderedIds;
+import com.example.socialmedia.repository.EntityCacheEvictor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Write-behind buffer for likes. A like or unlike only records the user's
+ * latest intent per post in memory, so repeated taps coalesce and a like
+ * followed by an unlike cancels out before reaching the database. Pending
+ * intents are written in JDBC batches when the buffer reaches
+ * {@code likes.buffer.flush-size} or on a fixed interval, together with one
+ * counter update per post.
+ * <p>
+ * Writes are idempotent (INSERT IGNORE against the unique (user_id, post_id)
+ * key, and a DELETE by that key) and counters move by the rows actually
+ * changed, so a stale intent never skews them. Intents still pending at
+ * shutdown are flushed, or journaled to disk and replayed on the next start
+ * if the database is unavailable.
+ */
+@Component
+@DependsOn("likeConstraintMigration")
+public class LikeBuffer {
+
+    private static final Comparator<Map.Entry<Key, Intent>> WRITE_ORDER = Comparator
+            .comparingLong((Map.Entry<Key, Intent> entry) -> entry.getKey().postId())
+            .thenComparingLong(entry -> entry.getKey().userId());
+
+    private final ConcurrentHashMap<Key, Intent> pending = new ConcurrentHashMap<>();
+    // Intents claimed by a flush whose transaction has not committed yet; until it does,
+    // the database still shows the old state, so submit reads the like state from here
+    private final ConcurrentHashMap<Key, Intent> inFlight = new ConcurrentHashMap<>();
+    // Sum of the pending intents per post, for optimistic counts; zero entries are removed
+    private final ConcurrentHashMap<Long, Integer> pendingDeltas = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final TaskExecutor flushExecutor;
+    private final TimeOrderedIds ids;
+    private final int flushSize;
+    private final int maxPending;
+    private final Path journal;
+
+    record Key(long userId, long postId) {
+    }
+
+    // Whether the user wants the like, and whether the database had it when the intent was first recorded
+    record Intent(boolean liked, boolean persisted) {
+        int delta() {
+            return liked == persisted ? 0 : liked ? 1 : -1;
+        }
+    }
+
+    public LikeBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                      EntityCacheEvictor entityCacheEvictor,
+                      @Qualifier("likeFlushExecutor") TaskExecutor flushExecutor, MeterRegistry meterRegistry,
+                      @Value("${likes.buffer.flush-size:500}") int flushSize,
+                      @Value("${likes.buffer.max-pending:50000}") int maxPending,
+                      @Value("${likes.buffer.journal:like-buffer.journal}") String journal,
+                      @Value("${ids.node-id:0}") int nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.flushExecutor = flushExecutor;
+        this.ids = TimeOrderedIds.forNode(nodeId);
+        this.flushSize = flushSize;
+        this.maxPending = maxPending;
+        this.journal = Path.of(journal);
+        Gauge.builder("likes.buffer.pending", pending, Map::size)
+                .description("Like and unlike intents not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records that the user likes (or no longer likes) the post. {@code persisted}
+     * is only consulted when nothing is pending or being written for this user
+     * and post. Returns whether the user's like state changed.
+     */
+    public boolean submit(long userId, long postId, boolean liked, BooleanSupplier persisted) {
+        Key key = new Key(userId, postId);
+        Intent existing = pending.get(key);
+        Intent writing = existing == null ? inFlight.get(key) : null;
+        boolean inDatabase = existing != null ? existing.persisted()
+                : writing != null ? writing.liked() : persisted.getAsBoolean();
+        boolean[] changed = new boolean[1];
+        pending.compute(key, (k, old) -> {
+            Intent current = old != null ? old : new Intent(inDatabase, inDatabase);
+            if (current.liked() == liked) {
+                return old;
+            }
+            changed[0] = true;
+            Intent updated = new Intent(liked, current.persisted());
+            addDelta(postId, updated.delta() - current.delta());
+            // Back to what the database already has: nothing left to write
+            return updated.delta() == 0 ? null : updated;
+        });
+        if (changed[0]) {
+            int size = pending.size();
+            if (size >= maxPending) {
+                // The database is falling behind; make the caller wait for a flush
+                flush();
+            } else if (size >= flushSize) {
+                requestFlush();
+            }
+        }
+        return changed[0];
+    }
+
+    // Likes accepted for the post but not yet reflected in its counter
+    public int pendingDelta(long postId) {
+        return pendingDeltas.getOrDefault(postId, 0);
+    }
+
+    // The user's pending like state for the post, or null when nothing is pending
+    public Boolean pendingLiked(long userId, long postId) {
+        Key key = new Key(userId, postId);
+        Intent intent = pending.get(key);
+        if (intent == null) {
+            intent = inFlight.get(key);
+        }
+        return intent != null ? intent.liked() : null;
+    }
+
+    private void addDelta(long postId, int delta) {
+        if (delta != 0) {
+            pendingDeltas.merge(postId, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    private void requestFlush() {
+        if (flushQueued.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushQueued.set(false);
+                    flushQuietly();
+                });
+            } catch (TaskRejectedException e) {
+                flushQueued.set(false);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${likes.buffer.flush-interval-ms:1000}",
+               fixedDelayString = "${likes.buffer.flush-interval-ms:1000}")
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to flush buffered likes, will retry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every pending intent. Runs in the caller's transaction if there is
+     * one. Claimed intents stay visible to {@link #submit} as in flight until the
+     * write has committed. On failure the intents go back into the buffer and
+     * the exception is rethrown. Returns the number of intents written.
+     */
+    public synchronized int flush() {
+        List<Map.Entry<Key, Intent>> claimed = new ArrayList<>();
+        for (Map.Entry<Key, Intent> entry : pending.entrySet()) {
+            // In flight before it leaves pending, so submit always finds one of the two
+            inFlight.put(entry.getKey(), entry.getValue());
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                claimed.add(Map.entry(entry.getKey(), entry.getValue()));
+            } else {
+                inFlight.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        claimed.sort(WRITE_ORDER);
+        try {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(claimed));
+            } catch (DataIntegrityViolationException e) {
+                // Usually a post deleted while its likes were buffered: write one
+                // intent at a time and drop the ones that cannot be applied
+                for (Map.Entry<Key, Intent> entry : claimed) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> write(List.of(entry)));
+                    } catch (DataIntegrityViolationException dropped) {
+                        System.err.println("Dropping buffered like " + entry.getKey() + ": " + dropped.getMessage());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            for (Map.Entry<Key, Intent> entry : claimed) {
+                // A newer intent recorded meanwhile assumed this one had been written; it now
+                // starts from what the database really has. The pending deltas already add up
+                // to the combined intent, so they stay as they are.
+                Intent failed = entry.getValue();
+                pending.compute(entry.getKey(), (key, newer) -> {
+                    Intent combined = newer == null ? failed : new Intent(newer.liked(), failed.persisted());
+                    return combined.delta() == 0 ? null : combined;
+                });
+                inFlight.remove(entry.getKey(), failed);
+            }
+            throw e;
+        }
+        for (Map.Entry<Key, Intent> entry : claimed) {
+            addDelta(entry.getKey().postId(), -entry.getValue().delta());
+            inFlight.remove(entry.getKey(), entry.getValue());
+        }
+        return claimed.size();
+    }
+
+    private void write(List<Map.Entry<Key, Intent>> intents) {
+        List<Key> likes = new ArrayList<>();
+        List<Key> unlikes = new ArrayList<>();
+        for (Map.Entry<Key, Intent> entry : intents) {
+            (entry.getValue().liked() ? likes : unlikes).add(entry.getKey());
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] inserted = batch("INSERT IGNORE INTO likes (id, user_id, post_id, created_at) VALUES (?, ?, ?, ?)",
+                likes, (ps, key) -> {
+                    ps.setLong(1, ids.next());
+                    ps.setLong(2, key.userId());
+                    ps.setLong(3, key.postId());
+                    ps.setTimestamp(4, now);
+                });
+        int[] deleted = batch("DELETE FROM likes WHERE user_id = ? AND post_id = ?",
+                unlikes, (ps, key) -> {
+                    ps.setLong(1, key.userId());
+                    ps.setLong(2, key.postId());
+                });
+
+        // Counters move by the rows actually changed; a driver that does not
+        // report per-row counts gets an exact recount of the posts involved
+        Map<Long, Integer> deltas = new TreeMap<>();
+        Set<Long> recount = new HashSet<>();
+        collectDeltas(likes, inserted, 1, deltas, recount);
+        collectDeltas(unlikes, deleted, -1, deltas, recount);
+        recount.forEach(deltas::remove);
+        List<Object[]> adjustments = new ArrayList<>();
+        deltas.forEach((postId, delta) -> {
+            if (delta != 0) {
+                adjustments.add(new Object[]{delta, now, postId});
+            }
+        });
+        if (!adjustments.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE posts SET likes_count = likes_count + ?, modified_at = ? WHERE id = ?",
+                    adjustments);
+            entityCacheEvictor.evict(Post.class, adjustments.stream().map(row -> row[2]).toList());
+        }
+        if (!recount.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE posts SET likes_count = (SELECT COUNT(*) FROM likes WHERE post_id = ?), " +
+                            "modified_at = ? WHERE id = ?",
+                    recount.stream().sorted().map(postId -> new Object[]{postId, now, postId}).toList());
+            entityCacheEvictor.evict(Post.class, recount);
+        }
+    }
+
+    private int[] batch(String sql, List<Key> keys, ParameterizedPreparedStatementSetter<Key> setter) {
+        return keys.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(sql, keys, keys.size(), setter)[0];
+    }
+
+    private static void collectDeltas(List<Key> keys, int[] counts, int sign,
+                                      Map<Long, Integer> deltas, Set<Long> recount) {
+        for (int i = 0; i < keys.size(); i++) {
+            long postId = keys.get(i).postId();
+            if (i >= counts.length || counts[i] == Statement.SUCCESS_NO_INFO) {
+                recount.add(postId);
+            } else {
+                deltas.merge(postId, sign * Math.min(counts[i], 1), Integer::sum);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        for (Map.Entry<Key, Intent> entry : pending.entrySet()) {
+            if (entry.getKey().postId() == event.postId() && pending.remove(entry.getKey(), entry.getValue())) {
+                addDelta(event.postId(), -entry.getValue().delta());
+            }
+        }
+    }
+
+    // Intents journaled by a previous shutdown are replayed once the database is reachable
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayJournal() {
+        if (!Files.exists(journal)) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(journal);
+            for (String line : lines) {
+                String[] fields = line.split(",");
+                if (fields.length != 4) {
+                    continue;
+                }
+                Key key = new Key(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+                Intent intent = new Intent(Boolean.parseBoolean(fields[2]), Boolean.parseBoolean(fields[3]));
+                if (pending.putIfAbsent(key, intent) == null) {
+                    addDelta(key.postId(), intent.delta());
+                }
+            }
+            flush();
+            Files.delete(journal);
+            System.out.println("Replayed " + lines.size() + " journaled likes from " + journal);
+        } catch (IOException | RuntimeException e) {
+            // The journal is kept and rewritten with whatever is still pending at shutdown
+            System.err.println("Failed to replay journaled likes from " + journal + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to flush buffered likes on shutdown: " + e.getMessage());
+        }
+        if (!pending.isEmpty()) {
+            writeJournal();
+        }
+    }
+
+    private void writeJournal() {
+        List<String> lines = new ArrayList<>(pending.size());
+        pending.forEach((key, intent) ->
+                lines.add(key.userId() + "," + key.postId() + "," + intent.liked() + "," + intent.persisted()));
+        try {
+            Path parent = journal.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "like-buffer", ".tmp");
+            Files.write(temp, lines);
+            Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.err.println("Journaled " + lines.size() + " buffered likes to " + journal);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal " + lines.size() + " buffered likes", e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.socialmedia.service;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open event stream. Events wait in a bounded per-connection buffer and
+ * are written by the shared sender pool, with at most one drain per
+ * connection in flight, so an idle connection holds no thread and a slow one
+ * only falls behind by its own buffer.
+ * <p>
+ * An event with a coalescing key replaces the pending event with the same
+ * key. When the buffer is full the oldest event is dropped, and the client is
+ * sent a resync before anything else.
+ * <p>
+ * A write to a client that stopped reading blocks its sender thread. The hub
+ * closes connections whose write has been blocked past the send timeout (see
+ * {@link #closeIfStalled}), so they get no further drains; the blocked write
+ * itself ends when the container's write times out, or the client resumes and
+ * is then disconnected.
+ */
+final class LiveConnection {
+
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Executor sender;
+    private final Counter dropped;
+    private final Counter coalesced;
+    private final Runnable onClose;
+
+    // Guarded by itself; events without a coalescing key get a sequence number as key
+    private final LinkedHashMap<Object, LiveEvent> buffer = new LinkedHashMap<>();
+    private long sequence;
+    private boolean overflowed;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    // System.nanoTime() when the write in progress started, 0 while not writing
+    private volatile long sendingSince;
+    private volatile boolean stalled;
+
+    LiveConnection(SseEmitter emitter, int capacity, Executor sender, Counter dropped, Counter coalesced,
+                   Runnable onClose) {
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.sender = sender;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.onClose = onClose;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    void offer(LiveEvent event) {
+        if (closed.get()) {
+            return;
+        }
+        synchronized (buffer) {
+            Object key = event.coalesceKey() != null ? event.coalesceKey() : sequence++;
+            // Replacing keeps the original position, so coalescing never reorders
+            if (buffer.put(key, event) != null) {
+                coalesced.increment();
+            } else if (buffer.size() > capacity) {
+                Iterator<LiveEvent> oldest = buffer.values().iterator();
+                oldest.next();
+                oldest.remove();
+                overflowed = true;
+                dropped.increment();
+            }
+        }
+        scheduleDrain();
+    }
+
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            synchronized (buffer) {
+                buffer.clear();
+            }
+            onClose.run();
+        }
+    }
+
+    // Returns whether the connection was closed because a write has been blocked longer than the timeout
+    boolean closeIfStalled(long timeoutNanos) {
+        long since = sendingSince;
+        if (since == 0 || System.nanoTime() - since < timeoutNanos || closed.get()) {
+            return false;
+        }
+        stalled = true;
+        close();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Events stay buffered; the next offer or heartbeat tries again
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            List<LiveEvent> batch;
+            while (!closed.get() && !(batch = take()).isEmpty()) {
+                for (LiveEvent event : batch) {
+                    sendingSince = System.nanoTime();
+                    emitter.send(event.toSse());
+                    sendingSince = 0;
+                }
+            }
+            if (stalled) {
+                // The client caught up after all; it reconnects and resyncs
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter already completed
+            close();
+        } finally {
+            sendingSince = 0;
+            draining.set(false);
+        }
+        // An offer may have lost the race with the finally block
+        if (!closed.get() && hasPending()) {
+            scheduleDrain();
+        }
+    }
+
+    private List<LiveEvent> take() {
+        synchronized (buffer) {
+            List<LiveEvent> batch = new ArrayList<>(buffer.size() + 1);
+            if (overflowed) {
+                batch.add(LiveEvent.RESYNC);
+                overflowed = false;
+            }
+            batch.addAll(buffer.values());
+            buffer.clear();
+            return batch;
+        }
+    }
+
+    private boolean hasPending() {
+        synchronized (buffer) {
+            return overflowed || !buffer.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.socialmedia.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+// One message on a live stream. Pending events with the same non-null
+// coalesceKey replace each other, so only the latest is sent.
+record LiveEvent(String name, Object coalesceKey, Object data) {
+
+    static final LiveEvent HEARTBEAT = new LiveEvent(null, "heartbeat", null);
+
+    // Sent after events were dropped: the client should refetch what it shows
+    static final LiveEvent RESYNC = new LiveEvent("resync", null, Map.of());
+
+    SseEmitter.SseEventBuilder toSse() {
+        // Heartbeats are SSE comments, which clients ignore
+        return name == null
+                ? SseEmitter.event().comment("keepalive")
+                : SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+    }
+}
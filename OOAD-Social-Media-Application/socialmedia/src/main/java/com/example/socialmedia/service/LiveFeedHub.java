@@ -0,0 +1,270 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.event.CommentCreatedEvent;
+import com.example.socialmedia.event.CommentDeletedEvent;
+import com.example.socialmedia.event.FollowChangedEvent;
+import com.example.socialmedia.event.PostCreatedEvent;
+import com.example.socialmedia.event.PostLikesChangedEvent;
+import com.example.socialmedia.model.Post;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process pub/sub behind the live feed stream. New posts, like counts and
+ * comments are pushed over Server-Sent Events to the connected users who have
+ * the post in their timeline: the author and, unless the post is private, the
+ * author's followers. Clients stop polling the feed to find out what changed.
+ * <p>
+ * Streams are async requests, so idle connections hold no thread. Fan-out
+ * runs on the live event pool and only appends to per-connection buffers
+ * (see {@link LiveConnection}); the sender pool does the writes. Like counts
+ * are coalesced per post for {@code live.like-coalesce-ms} before fan-out,
+ * so a burst of likes costs one event per connection.
+ * <p>
+ * Connected users are indexed by the users they follow, so an event only
+ * visits its author's connected followers. A user's entries are refreshed on
+ * their own follow changes and at every heartbeat, which picks up follows
+ * written by other instances once the follow graph has them. FRIENDS posts
+ * go by the same in-memory graph, so publishing never queries the database;
+ * an unfollow on another instance stops them at the next graph rebuild.
+ * <p>
+ * Connections whose client stopped reading are closed once a write has been
+ * blocked for {@code live.send-timeout-ms}, so they are not drained again.
+ */
+@Service
+public class LiveFeedHub {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final UserService userService;
+    private final FollowGraphIndex followGraphIndex;
+    private final TaskExecutor sender;
+    private final int bufferSize;
+    private final long emitterTimeoutMs;
+    private final int maxConnectionsPerUser;
+    private final long sendTimeoutNanos;
+
+    // Oldest connection first for each user
+    private final ConcurrentHashMap<Long, List<LiveConnection>> connections = new ConcurrentHashMap<>();
+    // Connected followers of each user, and the followees each connected user is indexed under;
+    // a user's entries only change inside connections.compute for that user
+    private final ConcurrentHashMap<Long, Set<Long>> audience = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, long[]> indexedFollowees = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final ConcurrentHashMap<Long, PostLikesChangedEvent> pendingLikes = new ConcurrentHashMap<>();
+    private final Counter dropped;
+    private final Counter coalesced;
+    private final Counter stalled;
+
+    public LiveFeedHub(UserService userService, FollowGraphIndex followGraphIndex,
+                       @Qualifier("liveSendExecutor") TaskExecutor sender, MeterRegistry meterRegistry,
+                       @Value("${live.buffer-size:64}") int bufferSize,
+                       @Value("${live.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                       @Value("${live.max-connections-per-user:5}") int maxConnectionsPerUser,
+                       @Value("${live.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.userService = userService;
+        this.followGraphIndex = followGraphIndex;
+        this.sender = sender;
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.sendTimeoutNanos = sendTimeoutMs * 1_000_000;
+        this.dropped = Counter.builder("live.events.dropped")
+                .description("Live events dropped because a connection's buffer was full")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("live.events.coalesced")
+                .description("Live events replaced by a newer one before being sent")
+                .register(meterRegistry);
+        this.stalled = Counter.builder("live.connections.stalled")
+                .description("Live streams closed because a write to the client was blocked too long")
+                .register(meterRegistry);
+        Gauge.builder("live.connections", connectionCount, AtomicInteger::get)
+                .description("Open live feed streams")
+                .register(meterRegistry);
+    }
+
+    // The client reconnects when the emitter times out; EventSource does so on its own
+    public SseEmitter subscribe(String username) {
+        Long userId = userService.getCurrentUser(username).getId();
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        LiveConnection connection = new LiveConnection(emitter, bufferSize, sender, dropped, coalesced,
+                () -> remove(userId, emitter));
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(e -> connection.close());
+
+        List<LiveConnection> userConnections = connections.compute(userId, (id, list) -> {
+            List<LiveConnection> updated = list != null ? list : new CopyOnWriteArrayList<>();
+            if (list == null) {
+                index(id, followGraphIndex.following(id));
+            }
+            updated.add(connection);
+            return updated;
+        });
+        connectionCount.incrementAndGet();
+        // Forgotten tabs should not pile up: the oldest stream makes room
+        if (userConnections.size() > maxConnectionsPerUser) {
+            userConnections.get(0).emitter().complete();
+        }
+        connection.offer(new LiveEvent("ready", null, Map.of("userId", userId)));
+        return emitter;
+    }
+
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    @Async("liveEventExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        publish(event.authorId(), event.privacyLevel(), new LiveEvent("new-post", null,
+                Map.of("postId", event.postId(), "authorId", event.authorId(), "createdAt", event.createdAt())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostLikesChanged(PostLikesChangedEvent event) {
+        if (connectionCount.get() > 0) {
+            pendingLikes.put(event.postId(), event);
+        }
+    }
+
+    @Async("liveEventExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        publish(event.authorId(), event.privacyLevel(), new LiveEvent("comment-created", null,
+                Map.of("postId", event.postId(), "comment", event.comment())));
+    }
+
+    @Async("liveEventExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentDeleted(CommentDeletedEvent event) {
+        publish(event.authorId(), event.privacyLevel(), new LiveEvent("comment-deleted", null,
+                Map.of("postId", event.postId(), "commentId", event.commentId())));
+    }
+
+    // Runs after FollowGraphIndex has applied the change
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        refresh(event.followerId());
+    }
+
+    @Scheduled(fixedDelayString = "${live.like-coalesce-ms:1000}")
+    public void flushLikes() {
+        for (Long postId : pendingLikes.keySet()) {
+            PostLikesChangedEvent event = pendingLikes.remove(postId);
+            if (event != null) {
+                // Keyed per post, so a slow connection still only holds the latest count
+                publish(event.authorId(), event.privacyLevel(), new LiveEvent("likes", "likes:" + postId,
+                        Map.of("postId", postId, "likesCount", event.likesCount())));
+            }
+        }
+    }
+
+    // Also lets proxies and load balancers see traffic on idle streams, and finds dead ones
+    @Scheduled(fixedDelayString = "${live.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        connections.values().forEach(list -> list.forEach(connection -> connection.offer(LiveEvent.HEARTBEAT)));
+        connections.keySet().forEach(this::refresh);
+    }
+
+    // Runs once per send timeout, so a stalled write is found within twice the timeout
+    @Scheduled(fixedDelayString = "${live.send-timeout-ms:5000}")
+    public void closeStalledConnections() {
+        connections.values().forEach(list -> list.forEach(connection -> {
+            if (connection.closeIfStalled(sendTimeoutNanos)) {
+                stalled.increment();
+            }
+        }));
+    }
+
+    // Visits the author and the author's connected followers only
+    private void publish(Long authorId, Post.PrivacyLevel privacyLevel, LiveEvent event) {
+        offer(authorId, event);
+        if (privacyLevel == Post.PrivacyLevel.PRIVATE) {
+            return;
+        }
+        for (Long viewerId : audience.getOrDefault(authorId, Set.of())) {
+            if (!viewerId.equals(authorId) && inTimeline(viewerId, authorId, privacyLevel)) {
+                offer(viewerId, event);
+            }
+        }
+    }
+
+    private void offer(Long viewerId, LiveEvent event) {
+        List<LiveConnection> list = connections.get(viewerId);
+        if (list != null) {
+            list.forEach(connection -> connection.offer(event));
+        }
+    }
+
+    // The audience index can lag a refresh behind the follow graph, so the edge is checked again
+    private boolean inTimeline(Long viewerId, Long authorId, Post.PrivacyLevel privacyLevel) {
+        if (viewerId.equals(authorId)) {
+            return true;
+        }
+        return privacyLevel != Post.PrivacyLevel.PRIVATE && followGraphIndex.follows(viewerId, authorId);
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        connections.computeIfPresent(userId, (id, list) -> {
+            if (list.removeIf(connection -> connection.emitter() == emitter)) {
+                connectionCount.decrementAndGet();
+            }
+            if (list.isEmpty()) {
+                index(id, EMPTY);
+                return null;
+            }
+            return list;
+        });
+    }
+
+    // Re-reads a connected user's followees from the follow graph
+    private void refresh(Long userId) {
+        connections.computeIfPresent(userId, (id, list) -> {
+            index(id, followGraphIndex.following(id));
+            return list;
+        });
+    }
+
+    // Moves the user's audience entries from the followees indexed before to the given ones
+    private void index(Long userId, long[] followees) {
+        long[] previous = indexedFollowees.getOrDefault(userId, EMPTY);
+        for (long followee : previous) {
+            if (Arrays.binarySearch(followees, followee) < 0) {
+                audience.computeIfPresent(followee, (id, viewers) -> {
+                    viewers.remove(userId);
+                    return viewers.isEmpty() ? null : viewers;
+                });
+            }
+        }
+        for (long followee : followees) {
+            if (Arrays.binarySearch(previous, followee) < 0) {
+                audience.computeIfAbsent(followee, id -> ConcurrentHashMap.newKeySet()).add(userId);
+            }
+        }
+        if (followees.length == 0) {
+            indexedFollowees.remove(userId);
+        } else {
+            indexedFollowees.put(userId, followees);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.socialmedia.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Filesystem media store. Blobs are named by the SHA-256 of their content,
+ * so an image uploaded twice is kept once and a stored file never changes,
+ * which is what lets {@code MediaController} serve it as immutable.
+ */
+@Service
+@ConditionalOnProperty(name = "media.store", havingValue = "local")
+public class LocalMediaStore implements MediaStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern NAME = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]{1,5}");
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp",
+            "video/mp4", "mp4");
+
+    private final Path root;
+    private final String publicBaseUrl;
+
+    public LocalMediaStore(@Value("${media.local.root:media-store}") String root,
+                           @Value("${media.public-base-url:http://localhost:8080}") String publicBaseUrl) throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        Files.createDirectories(this.root.resolve("tmp"));
+    }
+
+    @Override
+    public String store(InputStream content, String contentType) throws IOException {
+        String name = hashToFile(content, contentType);
+        return publicBaseUrl + "/api/media/" + name;
+    }
+
+    @Override
+    public InputStream open(String url) throws IOException {
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        Path path = resolve(name).orElseThrow(() -> new FileNotFoundException("No stored media for " + url));
+        return Files.newInputStream(path);
+    }
+
+    // Blobs are shared by every upload of the same content, so callers check that nothing still references it
+    @Override
+    public void delete(String url) throws IOException {
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        if (NAME.matcher(name).matches()) {
+            Files.deleteIfExists(pathFor(name));
+        }
+    }
+
+    // Streams the content into a temp file while hashing it, then moves it under its hash
+    private String hashToFile(InputStream content, String contentType) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(root.resolve("tmp"), "upload-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            String name = HexFormat.of().formatHex(digest.digest()) + "." + extensionFor(contentType);
+            Path target = pathFor(name);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same content stored concurrently; either copy is fine
+                }
+            }
+            return name;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Resolves a served name to its file; names that are not hash.ext never touch the filesystem
+    public Optional<Path> resolve(String name) {
+        if (!NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathFor(name);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public String contentTypeOf(String name) {
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        return EXTENSIONS.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(extension))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse("application/octet-stream");
+    }
+
+    // Two levels of fan-out keep directories small: ab/cd/abcd...
+    private Path pathFor(String name) {
+        return root.resolve(name.substring(0, 2)).resolve(name.substring(2, 4)).resolve(name);
+    }
+
+    private static String extensionFor(String contentType) {
+        return contentType != null ? EXTENSIONS.getOrDefault(contentType.toLowerCase(), "bin") : "bin";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
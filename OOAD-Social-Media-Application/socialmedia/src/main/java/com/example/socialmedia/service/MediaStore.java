@@ -0,0 +1,20 @@
+package com.example.socialmedia.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Backend that keeps uploaded media and hands out the URL clients load it
+ * from. Selected with the {@code media.store} property.
+ */
+public interface MediaStore {
+
+    // Stores the content and returns its public URL; the stream is read to the end but not closed
+    String store(InputStream content, String contentType) throws IOException;
+
+    // Opens previously stored content by the URL store() returned
+    InputStream open(String url) throws IOException;
+
+    // Removes content store() returned; content that is already gone is not an error
+    void delete(String url) throws IOException;
+}
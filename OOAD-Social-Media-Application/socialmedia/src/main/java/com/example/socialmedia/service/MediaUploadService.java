@@ -0,0 +1,242 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.event.MediaReadyEvent;
+import com.example.socialmedia.exception.BadRequestException;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.repository.EntityCacheEvictor;
+import com.example.socialmedia.repository.MediaVariantRepository;
+import com.example.socialmedia.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a post's image uploads concurrently on the bounded media upload pool,
+ * so a post's upload latency is that of its slowest image rather than the sum.
+ * When any upload of a post fails, the ones that succeeded are deleted again
+ * so the store does not fill up with blobs no post points to.
+ */
+@Service
+public class MediaUploadService {
+
+    private final ImageUploadService imageUploadService;
+    private final PostRepository postRepository;
+    private final MediaVariantRepository mediaVariantRepository;
+    private final MediaStore mediaStore;
+    private final AsyncTaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final Path spoolDir;
+    private final int maxFiles;
+
+    public MediaUploadService(ImageUploadService imageUploadService, PostRepository postRepository,
+                              MediaVariantRepository mediaVariantRepository, MediaStore mediaStore,
+                              @Qualifier("mediaUploadExecutor") AsyncTaskExecutor executor,
+                              TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                              EntityCacheEvictor entityCacheEvictor,
+                              @Value("${media.upload.spool-dir:${java.io.tmpdir}/socialmedia-spool}") String spoolDir,
+                              @Value("${media.upload.max-files:10}") int maxFiles) throws IOException {
+        this.imageUploadService = imageUploadService;
+        this.postRepository = postRepository;
+        this.mediaVariantRepository = mediaVariantRepository;
+        this.mediaStore = mediaStore;
+        this.executor = executor;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.spoolDir = Files.createDirectories(Path.of(spoolDir));
+        this.maxFiles = maxFiles;
+    }
+
+    // Base64 images from a JSON request body
+    public List<Callable<String>> fromBase64(List<String> base64Images) {
+        return base64Images.stream()
+                .<Callable<String>>map(image -> () -> imageUploadService.uploadImage(image))
+                .toList();
+    }
+
+    /**
+     * Multipart parts, streamed from Tomcat's on-disk copy. With {@code spool}
+     * each part is first moved into the spool directory, because the container
+     * deletes its copies when the request ends and deferred uploads outlive it.
+     * A spooled file is deleted once its upload has run; callers that give up
+     * on the uploads before that hand them to {@link #release}.
+     */
+    public List<Callable<String>> fromParts(List<MultipartFile> parts, boolean spool) throws IOException {
+        if (parts.size() > maxFiles) {
+            throw new BadRequestException("A post can have at most " + maxFiles + " media files");
+        }
+        List<Callable<String>> uploads = new ArrayList<>(parts.size());
+        try {
+            for (MultipartFile part : parts) {
+                String contentType = ImageUploadService.checkContentType(part.getContentType());
+                if (!spool) {
+                    uploads.add(() -> {
+                        try (InputStream in = part.getInputStream()) {
+                            return imageUploadService.upload(in, contentType);
+                        }
+                    });
+                    continue;
+                }
+                SpooledPart spooled = new SpooledPart(Files.createTempFile(spoolDir, "part-", ".upload"), contentType);
+                uploads.add(spooled);
+                part.transferTo(spooled.path);
+            }
+        } catch (IOException | RuntimeException e) {
+            release(uploads);
+            throw e;
+        }
+        return uploads;
+    }
+
+    // Deletes the spool files of uploads that will not run
+    public void release(List<Callable<String>> uploads) {
+        for (Callable<String> upload : uploads) {
+            if (upload instanceof SpooledPart spooled) {
+                spooled.delete();
+            }
+        }
+    }
+
+    // Completes once every upload has finished; if one failed, the others' blobs are deleted first
+    public CompletableFuture<List<String>> uploadAll(List<Callable<String>> uploads) {
+        List<CompletableFuture<String>> running = new ArrayList<>(uploads.size());
+        for (Callable<String> upload : uploads) {
+            try {
+                running.add(CompletableFuture.supplyAsync(() -> call(upload), executor));
+            } catch (RejectedExecutionException e) {
+                // A rejected upload never runs, so it cannot clean up after itself
+                release(List.of(upload));
+                running.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        return CompletableFuture.allOf(running.toArray(CompletableFuture[]::new))
+                .whenComplete((done, error) -> {
+                    if (error != null) {
+                        discard(running.stream()
+                                .filter(upload -> !upload.isCompletedExceptionally())
+                                .map(CompletableFuture::join)
+                                .toList());
+                    }
+                })
+                .thenApply(done -> running.stream().map(CompletableFuture::join).toList());
+    }
+
+    // Blocks until every upload has finished; used when the post is saved with its media
+    public List<String> uploadAllAndWait(List<Callable<String>> uploads) {
+        try {
+            return uploadAll(uploads).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException io ? io.getCause() : e.getCause();
+            if (cause instanceof BadRequestException badRequest) {
+                throw badRequest;
+            }
+            throw new RuntimeException("Failed to upload image: " + cause.getMessage(), cause);
+        }
+    }
+
+    // Uploads in the background and marks the already saved post READY, or FAILED if any upload fails
+    public CompletableFuture<Void> uploadAndAttach(Long postId, List<Callable<String>> uploads) {
+        return uploadAll(uploads).handle((urls, error) -> {
+            if (error != null) {
+                System.err.println("Media upload failed for post " + postId + ": " + error.getMessage());
+            }
+            boolean attached = Boolean.TRUE.equals(transactionTemplate.execute(status -> postRepository.findById(postId)
+                    .map(post -> {
+                        if (error == null) {
+                            post.getMediaUrls().addAll(urls);
+                            post.setMediaStatus(Post.MediaStatus.READY);
+                        } else {
+                            post.setMediaStatus(Post.MediaStatus.FAILED);
+                        }
+                        // The save leaves the counters alone, but would cache the ones loaded here
+                        entityCacheEvictor.evict(Post.class, postId);
+                        return true;
+                    })
+                    .orElse(false)));
+            if (attached && error == null) {
+                eventPublisher.publishEvent(new MediaReadyEvent(postId, urls));
+            } else if (error == null) {
+                // The post was deleted while its media was uploading
+                discard(urls);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Deletes stored media that no post or rendition refers to. Stores may
+     * keep identical content once for several posts, so a blob that another
+     * post also uses is left alone.
+     */
+    public void discard(Collection<String> urls) {
+        for (String url : urls) {
+            try {
+                if (!postRepository.existsByMediaUrl(url) && !mediaVariantRepository.existsByUrl(url)) {
+                    mediaStore.delete(url);
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to delete orphaned media " + url + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static String call(Callable<String> upload) {
+        try {
+            return upload.call();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A part moved into the spool directory; the file goes away once the upload has run
+    private final class SpooledPart implements Callable<String> {
+
+        private final Path path;
+        private final String contentType;
+
+        private SpooledPart(Path path, String contentType) {
+            this.path = path;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public String call() throws IOException {
+            try (InputStream in = Files.newInputStream(path)) {
+                return imageUploadService.upload(in, contentType);
+            } finally {
+                delete();
+            }
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("Failed to delete spooled upload " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.event.CommentCreatedEvent;
+import com.example.socialmedia.event.FollowChangedEvent;
+import com.example.socialmedia.event.PostDeletedEvent;
+import com.example.socialmedia.event.PostLikesChangedEvent;
+import com.example.socialmedia.model.Notification;
+import com.example.socialmedia.model.TimeOrderedIds;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind pipeline for notifications. Likes, comments and follows only
+ * record the actor under (recipient, type, target) in memory, so a burst on
+ * one post becomes a single pending entry however many users take part.
+ * Every {@code notifications.coalesce-window-ms}, or sooner once
+ * {@code notifications.flush-size} targets are pending, the entries are
+ * written in one transaction: merged into the recipient's unread notification
+ * for the same target ("alice and 41 others liked your post") or inserted as
+ * new ones, with the recipients' unread counters moved by the rows inserted.
+ * <p>
+ * Actors are recorded per notification in {@code notification_actors} and the
+ * count is taken from there, so a user who unlikes and likes again in a later
+ * window is still counted once. Entries still pending at shutdown are flushed
+ * once; if that fails they are lost.
+ */
+@Component
+public class NotificationBuffer {
+
+    private static final Comparator<Key> WRITE_ORDER = Comparator.comparingLong(Key::recipientId)
+            .thenComparing(Key::type)
+            .thenComparingLong(Key::targetId);
+
+    private final ConcurrentHashMap<Key, Burst> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor flushExecutor;
+    private final TimeOrderedIds ids;
+    private final int flushSize;
+
+    record Key(long recipientId, Notification.Type type, long targetId) {
+    }
+
+    // Mutated only inside pending.compute/merge, or after being removed from the map
+    static final class Burst {
+        private final Set<Long> actorIds = new HashSet<>();
+        private long lastActorId;
+        private LocalDateTime firstAt;
+        private LocalDateTime lastAt;
+
+        private Burst add(long actorId, LocalDateTime at) {
+            actorIds.add(actorId);
+            lastActorId = actorId;
+            if (firstAt == null) {
+                firstAt = at;
+            }
+            lastAt = at;
+            return this;
+        }
+
+        // Folds an older burst for the same key into this one
+        private Burst absorb(Burst older) {
+            actorIds.addAll(older.actorIds);
+            firstAt = older.firstAt;
+            return this;
+        }
+    }
+
+    public NotificationBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              @Qualifier("notificationFlushExecutor") TaskExecutor flushExecutor,
+                              MeterRegistry meterRegistry,
+                              @Value("${notifications.flush-size:1000}") int flushSize,
+                              @Value("${ids.node-id:0}") int nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushExecutor = flushExecutor;
+        this.ids = TimeOrderedIds.forNode(nodeId);
+        this.flushSize = flushSize;
+        Gauge.builder("notifications.buffer.pending", pending, Map::size)
+                .description("Notification targets with actors not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    // Records that actorId acted on the recipient's target; acting on your own content notifies nobody
+    public void record(long recipientId, Notification.Type type, long targetId, long actorId) {
+        if (recipientId == actorId) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        pending.compute(new Key(recipientId, type, targetId),
+                (key, burst) -> (burst != null ? burst : new Burst()).add(actorId, now));
+        if (pending.size() >= flushSize) {
+            requestFlush();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostLikesChanged(PostLikesChangedEvent event) {
+        if (event.liked()) {
+            record(event.authorId(), Notification.Type.LIKE, event.postId(), event.userId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        record(event.authorId(), Notification.Type.COMMENT, event.postId(), event.comment().getUser().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        if (event.following()) {
+            record(event.followeeId(), Notification.Type.FOLLOW, event.followeeId(), event.followerId());
+        }
+    }
+
+    // Rows already written are removed by NotificationService
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        pending.keySet().removeIf(key -> key.type() != Notification.Type.FOLLOW && key.targetId() == event.postId());
+    }
+
+    private void requestFlush() {
+        if (flushQueued.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushQueued.set(false);
+                    flushQuietly();
+                });
+            } catch (TaskRejectedException e) {
+                flushQueued.set(false);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${notifications.coalesce-window-ms:5000}",
+               fixedDelayString = "${notifications.coalesce-window-ms:5000}")
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to flush buffered notifications, will retry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every pending entry. On failure the entries go back into the
+     * buffer, merged with anything recorded meanwhile, and the exception is
+     * rethrown. Returns the number of notifications inserted or updated.
+     */
+    public synchronized int flush() {
+        Map<Key, Burst> claimed = new TreeMap<>(WRITE_ORDER);
+        for (Key key : pending.keySet()) {
+            Burst burst = pending.remove(key);
+            if (burst != null) {
+                claimed.put(key, burst);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(claimed));
+        } catch (RuntimeException e) {
+            claimed.forEach((key, burst) -> pending.merge(key, burst, Burst::absorb));
+            throw e;
+        }
+        return claimed.size();
+    }
+
+    private void write(Map<Key, Burst> claimed) {
+        Map<Key, Long> unread = lockUnread(claimed);
+
+        // Another instance may insert the same unread notification first; its unique
+        // unread_key turns our insert into a no-op and the lookup below finds its row
+        List<Object[]> inserts = new ArrayList<>();
+        Map<Key, Long> insertedIds = new HashMap<>();
+        claimed.forEach((key, burst) -> {
+            if (!unread.containsKey(key)) {
+                long id = ids.next();
+                insertedIds.put(key, id);
+                inserts.add(new Object[]{id, key.recipientId(), key.type().name(), key.targetId(),
+                        burst.lastActorId, Timestamp.valueOf(burst.firstAt), Timestamp.valueOf(burst.lastAt)});
+            }
+        });
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT IGNORE INTO notifications (id, recipient_id, type, target_id, " +
+                    "last_actor_id, actor_count, is_read, created_at, updated_at) VALUES (?, ?, ?, ?, ?, 0, FALSE, ?, ?)",
+                    inserts);
+            Map<Key, Burst> missing = new TreeMap<>(WRITE_ORDER);
+            insertedIds.keySet().forEach(key -> missing.put(key, claimed.get(key)));
+            unread.putAll(lockUnread(missing));
+            if (unread.size() < claimed.size()) {
+                // Marked read in between; the entries go back into the buffer and the next flush inserts them
+                throw new IllegalStateException("Unread notifications changed during the flush");
+            }
+        }
+
+        List<Object[]> actors = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        Map<Long, Integer> inserted = new TreeMap<>();
+        claimed.forEach((key, burst) -> {
+            Long id = unread.get(key);
+            burst.actorIds.forEach(actorId -> actors.add(new Object[]{id, actorId}));
+            updates.add(new Object[]{burst.lastActorId, Timestamp.valueOf(burst.lastAt), id});
+            if (id.equals(insertedIds.get(key))) {
+                inserted.merge(key.recipientId(), 1, Integer::sum);
+            }
+        });
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO notification_actors (notification_id, actor_id) VALUES (?, ?)", actors);
+        jdbcTemplate.batchUpdate("UPDATE notifications SET actor_count = " +
+                "(SELECT COUNT(*) FROM notification_actors WHERE notification_id = notifications.id), " +
+                "last_actor_id = ?, updated_at = ? WHERE id = ?", updates);
+        if (!inserted.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO notification_counters (user_id, unread_count) VALUES (?, ?) " +
+                            "ON DUPLICATE KEY UPDATE unread_count = unread_count + VALUES(unread_count)",
+                    inserted.entrySet().stream().map(entry -> new Object[]{entry.getKey(), entry.getValue()}).toList());
+        }
+    }
+
+    // Locks the unread notifications of the given keys, so marking them read waits for this flush
+    private Map<Key, Long> lockUnread(Map<Key, Burst> keys) {
+        Set<Long> recipients = new HashSet<>();
+        Set<Long> targets = new HashSet<>();
+        keys.keySet().forEach(key -> {
+            recipients.add(key.recipientId());
+            targets.add(key.targetId());
+        });
+        Map<Key, Long> unread = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, recipient_id, type, target_id FROM notifications " +
+                        "WHERE recipient_id IN (:recipients) AND target_id IN (:targets) AND is_read = FALSE " +
+                        "FOR UPDATE",
+                Map.of("recipients", recipients, "targets", targets), rs -> {
+                    Key key = new Key(rs.getLong(2), Notification.Type.valueOf(rs.getString(3)), rs.getLong(4));
+                    if (keys.containsKey(key)) {
+                        unread.put(key, rs.getLong(1));
+                    }
+                });
+        return unread;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Dropping " + pending.size() + " buffered notifications at shutdown: " + e.getMessage());
+        }
+    }
+}
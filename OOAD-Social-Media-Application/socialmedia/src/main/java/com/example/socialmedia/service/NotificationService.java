@@ -0,0 +1,107 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.NotificationDTO;
+import com.example.socialmedia.dto.PageCursor;
+import com.example.socialmedia.dto.UnreadCountDTO;
+import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.event.PostDeletedEvent;
+import com.example.socialmedia.model.Notification;
+import com.example.socialmedia.repository.NotificationRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Reads and read state of the notifications written by NotificationBuffer
+@Service
+public class NotificationService {
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final NotificationRepository notificationRepository;
+    private final UserService userService;
+
+    public NotificationService(NotificationRepository notificationRepository, UserService userService) {
+        this.notificationRepository = notificationRepository;
+        this.userService = userService;
+    }
+
+    // Most recently active first; a notification that gains actors moves back to the top
+    @Transactional(readOnly = true)
+    public CursorPage<NotificationDTO> getUnread(String username, String cursor, int size) {
+        Long recipientId = userService.getCurrentUser(username).getId();
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page exists
+        List<Notification> notifications = after == null
+                ? notificationRepository.findUnread(recipientId, Limit.of(pageSize + 1))
+                : notificationRepository.findUnreadBefore(recipientId, after.createdAt(), after.id(),
+                        Limit.of(pageSize + 1));
+
+        return CursorPage.fromRows(notifications, pageSize,
+                notification -> new PageCursor(notification.getUpdatedAt(), notification.getId()),
+                this::mapToDTOs);
+    }
+
+    // One primary key lookup, however many notifications are unread
+    @Transactional(readOnly = true)
+    public UnreadCountDTO getUnreadCount(String username) {
+        return unreadCount(userService.getCurrentUser(username).getId());
+    }
+
+    // Marks the given notifications, or all of them when ids is empty, and returns the new count
+    @Transactional
+    public UnreadCountDTO markRead(String username, List<Long> ids) {
+        Long recipientId = userService.getCurrentUser(username).getId();
+        int marked = ids == null || ids.isEmpty()
+                ? notificationRepository.markAllRead(recipientId)
+                : notificationRepository.markRead(recipientId, ids);
+        if (marked > 0) {
+            notificationRepository.decrementUnread(recipientId, marked);
+        }
+        return unreadCount(recipientId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onPostDeleted(PostDeletedEvent event) {
+        notificationRepository.deleteActorsForPost(event.authorId(), event.postId());
+        int unread = notificationRepository.deleteForPost(event.authorId(), event.postId(), false);
+        notificationRepository.deleteForPost(event.authorId(), event.postId(), true);
+        if (unread > 0) {
+            notificationRepository.decrementUnread(event.authorId(), unread);
+        }
+    }
+
+    private UnreadCountDTO unreadCount(Long userId) {
+        UnreadCountDTO count = new UnreadCountDTO();
+        count.setUnreadCount(notificationRepository.findUnreadCount(userId).orElse(0));
+        return count;
+    }
+
+    // The page's actors are loaded in one query
+    private List<NotificationDTO> mapToDTOs(List<Notification> notifications) {
+        Map<Long, UserDTO> actors = userService.getUserProfiles(
+                        notifications.stream().map(Notification::getLastActorId).distinct().toList())
+                .stream().collect(Collectors.toMap(UserDTO::getId, Function.identity()));
+        return notifications.stream().map(notification -> {
+            NotificationDTO dto = new NotificationDTO();
+            dto.setId(notification.getId());
+            dto.setType(notification.getType());
+            dto.setTargetId(notification.getTargetId());
+            dto.setLastActor(actors.get(notification.getLastActorId()));
+            dto.setActorCount(notification.getActorCount());
+            dto.setCreatedAt(notification.getCreatedAt());
+            dto.setUpdatedAt(notification.getUpdatedAt());
+            return dto;
+        }).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.repository.EntityCacheEvictor;
+import com.example.socialmedia.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Periodically compares the denormalized like/comment counters on posts with
+ * the likes and comments tables and recomputes the ones that drifted.
+ * Posts are walked in id order, one batch at a time.
+ */
+@Component
+public class PostCounterReconciler {
+
+    private final PostRepository postRepository;
+    private final LikeBuffer likeBuffer;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final int batchSize;
+
+    public PostCounterReconciler(PostRepository postRepository, LikeBuffer likeBuffer, EntityCacheEvictor entityCacheEvictor,
+                                 @Value("${counters.reconcile.batch-size:500}") int batchSize) {
+        this.postRepository = postRepository;
+        this.likeBuffer = likeBuffer;
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${counters.reconcile.initial-delay-ms:60000}",
+               fixedDelayString = "${counters.reconcile.interval-ms:3600000}")
+    public void scheduledReconcile() {
+        int repaired = reconcile();
+        if (repaired > 0) {
+            System.out.println("Repaired counters on " + repaired + " posts");
+        }
+    }
+
+    // Returns the number of posts whose counters were repaired
+    public int reconcile() {
+        // Buffered likes go in first, or their counters would be "repaired" back
+        likeBuffer.flush();
+        int repaired = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = postRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return repaired;
+            }
+            List<Long> drifted = postRepository.findIdsWithCounterDrift(ids);
+            if (!drifted.isEmpty()) {
+                repaired += postRepository.recountCounters(drifted, LocalDateTime.now());
+                entityCacheEvictor.evict(Post.class, drifted);
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CommentDTO;
+import com.example.socialmedia.dto.MediaVariantDTO;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.model.MediaVariant;
+import com.example.socialmedia.repository.CommentRepository;
+import com.example.socialmedia.repository.LikeRepository;
+import com.example.socialmedia.repository.MediaVariantRepository;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link PostDTO}s for a whole page of posts with a fixed number of
+ * set-based queries (authors, media, renditions and the viewer's likes),
+ * independent of the page size. Like and comment counts come from the post's
+ * own counters, plus any likes still waiting in the {@link LikeBuffer}.
+ * Optional comment previews add one windowed query; commenters are loaded
+ * together with the post authors.
+ */
+@Component
+public class PostPageAssembler {
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final LikeRepository likeRepository;
+    private final CommentRepository commentRepository;
+    private final MediaVariantRepository mediaVariantRepository;
+    private final LikeBuffer likeBuffer;
+
+    public PostPageAssembler(PostRepository postRepository, UserRepository userRepository,
+                             LikeRepository likeRepository, CommentRepository commentRepository,
+                             MediaVariantRepository mediaVariantRepository, LikeBuffer likeBuffer) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.likeRepository = likeRepository;
+        this.commentRepository = commentRepository;
+        this.mediaVariantRepository = mediaVariantRepository;
+        this.likeBuffer = likeBuffer;
+    }
+
+    public PostDTO assemble(Post post, User viewer) {
+        return assemble(List.of(post), viewer).get(0);
+    }
+
+    /**
+     * Loads the given posts and assembles them in the order of {@code postIds}.
+     * Ids that no longer exist are skipped.
+     */
+    public List<PostDTO> assembleIds(List<Long> postIds, User viewer) {
+        return assembleIds(postIds, viewer, 0);
+    }
+
+    public List<PostDTO> assembleIds(List<Long> postIds, User viewer, int commentPreviews) {
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Post> postsById = postRepository.findAllById(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+
+        List<Post> posts = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            Post post = postsById.get(postId);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return assemble(posts, viewer, commentPreviews);
+    }
+
+    public List<PostDTO> assemble(List<Post> posts, User viewer) {
+        return assemble(posts, viewer, 0);
+    }
+
+    // commentPreviews is the number of newest comments embedded per post, 0 for none
+    public List<PostDTO> assemble(List<Post> posts, User viewer, int commentPreviews) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> postIds = new HashSet<>();
+        Set<Long> authorIds = new HashSet<>();
+        for (Post post : posts) {
+            postIds.add(post.getId());
+            // Reading the id of a lazy proxy does not initialize it
+            authorIds.add(post.getUser().getId());
+        }
+
+        List<Object[]> commentRows = commentPreviews > 0
+                ? commentRepository.findLatestPerPost(postIds, commentPreviews) : List.of();
+        for (Object[] row : commentRows) {
+            authorIds.add(((Number) row[2]).longValue());
+        }
+
+        Map<Long, User> authors = userRepository.findAllById(authorIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        Map<Long, Set<String>> mediaUrls = new HashMap<>();
+        for (Object[] row : postRepository.findMediaUrlsByPostIds(postIds)) {
+            mediaUrls.computeIfAbsent((Long) row[0], id -> new LinkedHashSet<>()).add((String) row[1]);
+        }
+
+        Map<Long, List<MediaVariantDTO>> variants = new HashMap<>();
+        for (MediaVariant variant : mediaVariantRepository.findByPostIds(postIds)) {
+            variants.computeIfAbsent(variant.getPostId(), id -> new ArrayList<>()).add(new MediaVariantDTO(
+                    variant.getOriginalUrl(), variant.getUrl(), variant.getWidth(), variant.getHeight()));
+        }
+
+        Map<Long, List<CommentDTO>> previews = new HashMap<>();
+        for (Object[] row : commentRows) {
+            User commenter = authors.get(((Number) row[2]).longValue());
+            if (commenter == null) {
+                continue;
+            }
+            CommentDTO commentDTO = new CommentDTO();
+            commentDTO.setId(((Number) row[0]).longValue());
+            commentDTO.setContent((String) row[3]);
+            commentDTO.setCreatedAt(toLocalDateTime(row[4]));
+            commentDTO.setUser(mapAuthor(commenter));
+            previews.computeIfAbsent(((Number) row[1]).longValue(), id -> new ArrayList<>()).add(commentDTO);
+        }
+
+        Set<Long> likedByViewer = new HashSet<>(likeRepository.findLikedPostIds(viewer.getId(), postIds));
+
+        List<PostDTO> result = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            PostDTO postDTO = new PostDTO();
+            postDTO.setId(post.getId());
+            postDTO.setContent(post.getContent());
+            postDTO.setMediaUrls(mediaUrls.getOrDefault(post.getId(), new LinkedHashSet<>()));
+            postDTO.setPrivacyLevel(post.getPrivacyLevel());
+            postDTO.setMediaStatus(post.getMediaStatus());
+            postDTO.setMediaVariants(variants.getOrDefault(post.getId(), new ArrayList<>()));
+            postDTO.setCreatedAt(post.getCreatedAt());
+            postDTO.setUser(mapAuthor(authors.get(post.getUser().getId())));
+            // Likes still in the write-behind buffer are overlaid so the viewer sees their own taps
+            postDTO.setLikesCount(Math.max(0, post.getLikesCount() + likeBuffer.pendingDelta(post.getId())));
+            postDTO.setCommentsCount(post.getCommentsCount());
+            Boolean pendingLike = likeBuffer.pendingLiked(viewer.getId(), post.getId());
+            postDTO.setLikedByCurrentUser(pendingLike != null ? pendingLike : likedByViewer.contains(post.getId()));
+            if (commentPreviews > 0) {
+                postDTO.setCommentPreviews(previews.getOrDefault(post.getId(), new ArrayList<>()));
+            }
+            result.add(postDTO);
+        }
+        return result;
+    }
+
+    private UserDTO mapAuthor(User author) {
+        UserDTO userDTO = new UserDTO();
+        userDTO.setId(author.getId());
+        userDTO.setUsername(author.getUsername());
+        userDTO.setProfilePicture(author.getProfilePicture());
+        return userDTO;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -1,45 +1,94 @@
 package com.example.socialmedia.service;
 
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.LikeBatchResultDTO;
+import com.example.socialmedia.dto.LikeMutationRequest;
+import com.example.socialmedia.dto.LikeStatusDTO;
+import com.example.socialmedia.dto.PageCursor;
 import com.example.socialmedia.dto.PostDTO;
 import com.example.socialmedia.dto.PostRequest;
-import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.event.MediaReadyEvent;
+import com.example.socialmedia.event.PostCreatedEvent;
+import com.example.socialmedia.event.PostDeletedEvent;
+import com.example.socialmedia.event.PostLikesChangedEvent;
+import com.example.socialmedia.exception.BadRequestException;
 import com.example.socialmedia.exception.ResourceNotFoundException;
 import com.example.socialmedia.exception.UnauthorizedException;
-import com.example.socialmedia.model.Like;
 import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.TimelineEntry;
 import com.example.socialmedia.model.User;
-import com.example.socialmedia.repository.CommentRepository;
 import com.example.socialmedia.repository.LikeRepository;
 import com.example.socialmedia.repository.PostRepository;
 
-import java.io.IOException;
 
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
 @Service
 public class PostService {
 
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_COMMENT_PREVIEWS = 5;
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final PostRepository postRepository;
     private final LikeRepository likeRepository;
-    private final CommentRepository commentRepository;
     private final UserService userService;
-    private final ImageUploadService imageUploadService;
+    private final MediaUploadService mediaUploadService;
+    private final PostPageAssembler postPageAssembler;
+    private final TimelineService timelineService;
+    private final PullFeedEngine pullFeedEngine;
+    private final FollowGraphIndex followGraphIndex;
+    private final PostVisibility postVisibility;
+    private final TrendingService trendingService;
+    private final LikeBuffer likeBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FeedMode defaultFeedMode;
+    private final boolean deferMediaByDefault;
+    private final TransactionTemplate readOnlyTransaction;
 
     public PostService(PostRepository postRepository, LikeRepository likeRepository,
-                      CommentRepository commentRepository, UserService userService,
-                      ImageUploadService imageUploadService) {
+                      UserService userService, MediaUploadService mediaUploadService,
+                      PostPageAssembler postPageAssembler, TimelineService timelineService,
+                      PullFeedEngine pullFeedEngine, FollowGraphIndex followGraphIndex, PostVisibility postVisibility,
+                      TrendingService trendingService, LikeBuffer likeBuffer,
+                      ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                      @Value("${feed.mode:TIMELINE}") FeedMode defaultFeedMode,
+                      @Value("${media.upload.defer:true}") boolean deferMediaByDefault) {
         this.postRepository = postRepository;
         this.likeRepository = likeRepository;
-        this.commentRepository = commentRepository;
         this.userService = userService;
-        this.imageUploadService= imageUploadService;
+        this.mediaUploadService = mediaUploadService;
+        this.postPageAssembler = postPageAssembler;
+        this.timelineService = timelineService;
+        this.pullFeedEngine = pullFeedEngine;
+        this.followGraphIndex = followGraphIndex;
+        this.postVisibility = postVisibility;
+        this.trendingService = trendingService;
+        this.likeBuffer = likeBuffer;
+        this.eventPublisher = eventPublisher;
+        this.defaultFeedMode = defaultFeedMode;
+        this.deferMediaByDefault = deferMediaByDefault;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     // socialmedia-backend/src/main/java/com/example/socialmedia/service/PostService.java
@@ -53,23 +102,64 @@ public class PostService {
 // socialmedia-backend/src/main/java/com/example/socialmedia/service/PostService.java
 // Update the getFeed method:
 
-public Page<PostDTO> getFeed(String username, Pageable pageable) {
+public CursorPage<PostDTO> getFeed(String username, String cursor, int size, FeedMode mode) {
+    return getFeed(username, cursor, size, mode, 0);
+}
+
+// Read-only transactions are served by a replica when replicas are configured.
+// commentPreviews embeds up to that many newest comments in every post.
+// The transaction is opened here rather than with @Transactional so that a failure
+// is caught after it has rolled back; catching it inside would leave the transaction
+// marked rollback-only and the commit would throw UnexpectedRollbackException.
+public CursorPage<PostDTO> getFeed(String username, String cursor, int size, FeedMode mode, int commentPreviews) {
+    PageCursor after = PageCursor.decode(cursor);
+    int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    int previews = Math.max(0, Math.min(commentPreviews, MAX_COMMENT_PREVIEWS));
     try {
-        User currentUser = userService.getCurrentUser(username);
-        
-        // Use the simplified query first to ensure we get some posts
-        Page<Post> posts = postRepository.findPublicPosts(pageable);
-        
-        return posts.map(post -> mapToDTO(post, currentUser));
+        return readOnlyTransaction.execute(status -> loadFeed(username, after, pageSize, mode, previews));
     } catch (Exception e) {
         // Log the error
         System.err.println("Error fetching feed: " + e.getMessage());
         e.printStackTrace();
         // Return empty page instead of throwing exception
-        return Page.empty(pageable);
+        return new CursorPage<>(new ArrayList<>(), null, true);
     }
 }
+
+private CursorPage<PostDTO> loadFeed(String username, PageCursor after, int pageSize, FeedMode mode, int previews) {
+    User currentUser = userService.getCurrentUser(username);
+    
+    if ((mode != null ? mode : defaultFeedMode) == FeedMode.PULL) {
+        List<FeedItem> items = pullFeedEngine.page(currentUser.getId(), after, pageSize + 1);
+        return CursorPage.fromRows(items, pageSize, FeedItem::cursor,
+                page -> postPageAssembler.assembleIds(page.stream().map(FeedItem::postId).toList(), currentUser, previews));
+    }
+    
+    // A user's own posts go into their timeline too, so it only counts once they follow someone
+    if (followGraphIndex.followingCount(currentUser.getId()) > 0) {
+        // Fetch one extra row to know whether another page exists
+        List<TimelineEntry> entries = timelineService.getTimeline(currentUser.getId(), after, pageSize + 1);
+        if (!entries.isEmpty() || timelineService.hasTimeline(currentUser.getId())) {
+            return CursorPage.fromRows(entries, pageSize, entry -> new PageCursor(entry.getPostCreatedAt(), entry.getPostId()),
+                    page -> postPageAssembler.assembleIds(page.stream().map(TimelineEntry::getPostId).toList(), currentUser, previews));
+        }
+    }
+    
+    // Users without a timeline yet (e.g. following nobody) get the public posts
+    List<Post> posts = after == null
+            ? postRepository.findLatestPublicPosts(Limit.of(pageSize + 1))
+            : postRepository.findPublicPostsBefore(after.createdAt(), after.id(), Limit.of(pageSize + 1));
+    
+    return CursorPage.fromRows(posts, pageSize, post -> new PageCursor(post.getCreatedAt(), post.getId()),
+            page -> postPageAssembler.assemble(page, currentUser, previews));
+}
+
     public PostDTO createPost(String username, PostRequest postRequest) {
+        return createPost(username, postRequest, List.of());
+    }
+
+    // Media comes either as base64 strings in the request or as multipart parts
+    public PostDTO createPost(String username, PostRequest postRequest, List<MultipartFile> parts) {
         User currentUser = userService.getCurrentUser(username);
         
         // Validate post content
@@ -80,40 +170,68 @@ public Page<PostDTO> getFeed(String username, Pageable pageable) {
         // Create new post
         Post post = new Post();
         post.setContent(postRequest.getContent());
-        List<String> imageUrls = new ArrayList<>();
-        if (postRequest.getMediaUrls() != null) {
-            for (String base64Image : postRequest.getMediaUrls()) {
-                try {
-                    // Upload image and get URL
-                    // System.out.println("\n\n\n\n\nReceived Base64 image: " + base64Image.substring(0, Math.min(30, base64Image.length())) + "...");
-                    String imageUrl = imageUploadService.uploadImage(base64Image);
-                    imageUrls.add(imageUrl);
-                    System.out.println("Uploaded image URL: " + imageUrl);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to upload image: " + e.getMessage(), e);
-                }
-                
-                
-            }
+        List<String> images = postRequest.getMediaUrls() != null
+                ? new ArrayList<>(postRequest.getMediaUrls()) : new ArrayList<>();
+        boolean defer = (!images.isEmpty() || !parts.isEmpty())
+                && (postRequest.getDeferMedia() != null ? postRequest.getDeferMedia() : deferMediaByDefault);
+        List<Callable<String>> uploads = new ArrayList<>(mediaUploadService.fromBase64(images));
+        try {
+            uploads.addAll(mediaUploadService.fromParts(parts, defer));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read uploaded media: " + e.getMessage(), e);
+        }
+        if (defer) {
+            post.setMediaStatus(Post.MediaStatus.PENDING);
+        } else if (!uploads.isEmpty()) {
+            post.setMediaUrls(new HashSet<>(mediaUploadService.uploadAllAndWait(uploads)));
         }
-        // System.out.println("Base64 images in mediaUrls: " + postRequest.getMediaUrls());
-
-        post.setMediaUrls(new HashSet<>(imageUrls));
 
         post.setPrivacyLevel(postRequest.getPrivacyLevel());
         post.setUser(currentUser);
         
-        Post savedPost = postRepository.save(post);
+        Post savedPost;
+        try {
+            savedPost = postRepository.save(post);
+        } catch (RuntimeException e) {
+            // Deferred uploads have not started yet, so their spool files are still ours
+            mediaUploadService.release(uploads);
+            throw e;
+        }
+        if (defer) {
+            mediaUploadService.uploadAndAttach(savedPost.getId(), uploads);
+        } else if (!savedPost.getMediaUrls().isEmpty()) {
+            eventPublisher.publishEvent(new MediaReadyEvent(savedPost.getId(), new ArrayList<>(savedPost.getMediaUrls())));
+        }
+        eventPublisher.publishEvent(new PostCreatedEvent(savedPost.getId(), currentUser.getId(),
+                savedPost.getPrivacyLevel(), savedPost.getCreatedAt(), savedPost.getContent()));
         
-        return mapToDTO(savedPost, currentUser);
+        return postPageAssembler.assemble(savedPost, currentUser);
     }
 
+    @Transactional(readOnly = true)
     public PostDTO getPostById(Long postId, String username) {
         User currentUser = userService.getCurrentUser(username);
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
+        checkVisible(post, currentUser);
         
-        return mapToDTO(post, currentUser);
+        return postPageAssembler.assemble(post, currentUser);
+    }
+
+    // Answers a conditional GET from one indexed lookup, without loading the post.
+    // Besides the post and its author, the ETag covers the viewer's own like and
+    // likes still waiting in the buffer, which the full response overlays.
+    @Transactional(readOnly = true)
+    public ContentVersion getPostVersion(Long postId, String username) {
+        Long viewerId = userService.getCurrentUser(username).getId();
+        Object[] row = postRepository.findVersionById(postId).stream().findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
+        if (!postVisibility.canView(viewerId, (Long) row[0], (Post.PrivacyLevel) row[1])) {
+            throw new UnauthorizedException("You are not authorized to view this post");
+        }
+        LocalDateTime modifiedAt = (LocalDateTime) row[2];
+        LocalDateTime authorModifiedAt = (LocalDateTime) row[3];
+        return ContentVersion.of("p" + postId, modifiedAt, authorModifiedAt, viewerId, likeBuffer.pendingDelta(postId), likeBuffer.pendingLiked(viewerId, postId));
     }
 
     public void deletePost(Long postId, String username) {
@@ -126,65 +244,141 @@ public Page<PostDTO> getFeed(String username, Pageable pageable) {
             throw new UnauthorizedException("You are not authorized to delete this post");
         }
         
+        List<String> mediaUrls = postRepository.findMediaUrlsByPostIds(List.of(postId)).stream()
+                .map(row -> (String) row[1])
+                .toList();
         postRepository.delete(post);
+        eventPublisher.publishEvent(new PostDeletedEvent(postId, currentUser.getId(), mediaUrls));
     }
 
-    public PostDTO likePost(Long postId, String username) {
+    // Idempotent: liking an already liked post is a no-op. The like is
+    // buffered and written behind; the returned count already includes it.
+    public LikeStatusDTO likePost(Long postId, String username) {
         User currentUser = userService.getCurrentUser(username);
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
-        
-        // Check if user already liked the post
-        if (likeRepository.existsByUserAndPost(currentUser, post)) {
-            throw new IllegalArgumentException("You have already liked this post");
+        checkVisible(post, currentUser);
+
+        boolean changed = submitLike(currentUser, post, true);
+        if (changed) {
+            trendingService.recordLike(post);
         }
-        
-        // Create new like
-        Like like = new Like();
-        like.setUser(currentUser);
-        like.setPost(post);
-        
-        likeRepository.save(like);
-        
-        return mapToDTO(post, currentUser);
+        return likeStatus(post, currentUser, true, changed);
     }
 
-    public PostDTO unlikePost(Long postId, String username) {
+    public LikeStatusDTO unlikePost(Long postId, String username) {
         User currentUser = userService.getCurrentUser(username);
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
-        
-        // Find the like
-        Like like = likeRepository.findByUserAndPost(currentUser, post)
-                .orElseThrow(() -> new ResourceNotFoundException("Like not found"));
-        
-        likeRepository.delete(like);
-        
-        return mapToDTO(post, currentUser);
+
+        return likeStatus(post, currentUser, false, submitLike(currentUser, post, false));
     }
 
-    private PostDTO mapToDTO(Post post, User currentUser) {
-        PostDTO postDTO = new PostDTO();
-        postDTO.setId(post.getId());
-        postDTO.setContent(post.getContent());
-        postDTO.setMediaUrls(post.getMediaUrls());
-        postDTO.setPrivacyLevel(post.getPrivacyLevel());
-        postDTO.setCreatedAt(post.getCreatedAt());
-        
-        // Map user
-        UserDTO userDTO = new UserDTO();
-        userDTO.setId(post.getUser().getId());
-        userDTO.setUsername(post.getUser().getUsername());
-        userDTO.setProfilePicture(post.getUser().getProfilePicture());
-        postDTO.setUser(userDTO);
-        
-        // Count likes and comments
-        postDTO.setLikesCount(likeRepository.countByPost(post));
-        postDTO.setCommentsCount((int) commentRepository.findByPostOrderByCreatedAtDesc(post, Pageable.unpaged()).getTotalElements());
-        
-        // Check if current user liked the post
-        postDTO.setLikedByCurrentUser(likeRepository.existsByUserAndPost(currentUser, post));
-        
-        return postDTO;
+    private boolean submitLike(User user, Post post, boolean liked) {
+        return likeBuffer.submit(user.getId(), post.getId(), liked,
+                () -> likeRepository.existsByUserIdAndPostId(user.getId(), post.getId()));
+    }
+
+    // A changed like also goes out to live feed streams and notifications
+    private LikeStatusDTO likeStatus(Post post, User user, boolean liked, boolean changed) {
+        LikeStatusDTO status = new LikeStatusDTO();
+        status.setPostId(post.getId());
+        status.setLiked(liked);
+        status.setLikesCount(Math.max(0, post.getLikesCount() + likeBuffer.pendingDelta(post.getId())));
+        if (changed) {
+            eventPublisher.publishEvent(new PostLikesChangedEvent(post.getId(), post.getUser().getId(),
+                    post.getPrivacyLevel(), status.getLikesCount(), user.getId(), liked));
+        }
+        return status;
     }
-}
\ No newline at end of file
+
+    // Up to MAX_BATCH_SIZE posts in one pass, in the requested order; ids that do
+    // not exist or that the viewer may not see are left out
+    @Transactional(readOnly = true)
+    public List<PostDTO> getPostsByIds(List<Long> postIds, String username) {
+        List<Long> ids = postIds.stream().distinct().toList();
+        checkBatchSize(ids.size());
+        User currentUser = userService.getCurrentUser(username);
+        Map<Long, Post> posts = findPostsById(ids);
+        PostVisibility.Viewer visibility = postVisibility.forViewer(currentUser.getId());
+        List<Post> visible = ids.stream()
+                .map(posts::get)
+                .filter(post -> post != null && visibility.canView(post.getUser().getId(), post.getPrivacyLevel()))
+                .toList();
+        return postPageAssembler.assemble(visible, currentUser);
+    }
+
+    // Applies each like or unlike as likePost/unlikePost would, with one query for
+    // the posts and one for the viewer's existing likes. The intents only reach the
+    // like buffer here; its scheduled flush later writes them as JDBC batches.
+    // Missing or hidden posts get their own result, so one bad id does not fail the rest.
+    public List<LikeBatchResultDTO> applyLikes(List<LikeMutationRequest> likes, String username) {
+        checkBatchSize(likes.size());
+        User currentUser = userService.getCurrentUser(username);
+        List<Long> ids = likes.stream().map(LikeMutationRequest::getPostId).distinct().toList();
+        Map<Long, Post> posts = findPostsById(ids);
+        Set<Long> persisted = new HashSet<>(likeRepository.findLikedPostIds(currentUser.getId(), ids));
+
+        List<LikeBatchResultDTO> results = new ArrayList<>(likes.size());
+        for (LikeMutationRequest like : likes) {
+            LikeBatchResultDTO result = new LikeBatchResultDTO();
+            result.setPostId(like.getPostId());
+            Post post = posts.get(like.getPostId());
+            try {
+                if (post == null) {
+                    throw new ResourceNotFoundException("Post not found with id: " + like.getPostId());
+                }
+                if (like.isLiked()) {
+                    checkVisible(post, currentUser);
+                }
+                boolean changed = likeBuffer.submit(currentUser.getId(), post.getId(), like.isLiked(),
+                        () -> persisted.contains(post.getId()));
+                if (changed && like.isLiked()) {
+                    trendingService.recordLike(post);
+                }
+                LikeStatusDTO status = likeStatus(post, currentUser, like.isLiked(), changed);
+                result.setStatus(200);
+                result.setLiked(status.isLiked());
+                result.setLikesCount(status.getLikesCount());
+            } catch (ResourceNotFoundException e) {
+                result.setStatus(404);
+                result.setError(e.getMessage());
+            } catch (UnauthorizedException e) {
+                result.setStatus(401);
+                result.setError(e.getMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private Map<Long, Post> findPostsById(List<Long> ids) {
+        return postRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " posts per batch");
+        }
+    }
+
+    // Served from the trending snapshot; only the page of posts shown is loaded
+    public List<PostDTO> getTrending(String username, int limit) {
+        User currentUser = userService.getCurrentUser(username);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PostVisibility.Viewer visibility = postVisibility.forViewer(currentUser.getId());
+        List<Long> postIds = trendingService.snapshot().stream()
+                .filter(post -> visibility.canView(post.authorId(), post.privacyLevel()))
+                .limit(size)
+                .map(TrendingService.TrendingPost::postId)
+                .toList();
+        return postPageAssembler.assembleIds(postIds, currentUser);
+    }
+
+    private void checkVisible(Post post, User viewer) {
+        if (!postVisibility.canView(viewer.getId(), post.getUser().getId(), post.getPrivacyLevel())) {
+            throw new UnauthorizedException("You are not authorized to view this post");
+        }
+    }
+}
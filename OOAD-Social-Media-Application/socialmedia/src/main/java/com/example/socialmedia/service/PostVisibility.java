@@ -0,0 +1,72 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.repository.FollowRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FRIENDS posts are visible to the author's followers, PRIVATE posts only to
+ * the author. Follow edges are read from the follows table rather than from
+ * {@link FollowGraphIndex}: the index only sees follows made on other
+ * instances at its next rebuild, so an unfollow there would keep access open
+ * until then. The index still drives feeds and suggestions, where a stale
+ * edge costs nothing worse than a missing or extra post.
+ */
+@Component
+public class PostVisibility {
+
+    private final FollowRepository followRepository;
+
+    public PostVisibility(FollowRepository followRepository) {
+        this.followRepository = followRepository;
+    }
+
+    public boolean canView(Long viewerId, Long authorId, Post.PrivacyLevel privacyLevel) {
+        return forViewer(viewerId).canView(authorId, privacyLevel);
+    }
+
+    // For checking many posts in one request; each author's follow edge is read at most once
+    public Viewer forViewer(Long viewerId) {
+        return new Viewer(viewerId, false);
+    }
+
+    // For scans over posts by any number of authors, such as search: all of the viewer's
+    // follow edges are read in one query, at the first FRIENDS post
+    public Viewer forScan(Long viewerId) {
+        return new Viewer(viewerId, true);
+    }
+
+    public final class Viewer {
+
+        private final Long viewerId;
+        private final boolean loadAll;
+        private final Map<Long, Boolean> follows = new HashMap<>();
+        private Set<Long> followees;
+
+        private Viewer(Long viewerId, boolean loadAll) {
+            this.viewerId = viewerId;
+            this.loadAll = loadAll;
+        }
+
+        public boolean canView(Long authorId, Post.PrivacyLevel privacyLevel) {
+            if (privacyLevel == null || privacyLevel == Post.PrivacyLevel.PUBLIC || authorId.equals(viewerId)) {
+                return true;
+            }
+            if (privacyLevel != Post.PrivacyLevel.FRIENDS) {
+                return false;
+            }
+            if (loadAll) {
+                if (followees == null) {
+                    followees = new HashSet<>(followRepository.findFolloweeIds(viewerId));
+                }
+                return followees.contains(authorId);
+            }
+            return follows.computeIfAbsent(authorId, id -> followRepository.existsByFollowerIdAndFolloweeId(viewerId, id));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.PageCursor;
+import com.example.socialmedia.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pull-model feed: every followee's recent posts are read as a newest-first
+ * stream and the streams are k-way merged through a heap holding one head per
+ * author. Streams start with a small prefetch and refill from their own
+ * per-author cursor, so no author is rescanned within a request. Across
+ * requests the page cursor is a valid resume point for every stream because
+ * the merged output is globally ordered.
+ */
+@Component
+public class PullFeedEngine {
+
+    // Upper bound for the first page; fits in a MySQL DATETIME
+    private static final LocalDateTime NEWEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final PostRepository postRepository;
+    private final FollowGraphIndex followGraphIndex;
+    private final AsyncTaskExecutor executor;
+    private final int authorBatchSize;
+    private final int prefetchPerAuthor;
+
+    public PullFeedEngine(PostRepository postRepository, FollowGraphIndex followGraphIndex,
+                          @Qualifier("feedPullExecutor") AsyncTaskExecutor executor,
+                          @Value("${feed.pull.author-batch-size:100}") int authorBatchSize,
+                          @Value("${feed.pull.prefetch-per-author:5}") int prefetchPerAuthor) {
+        this.postRepository = postRepository;
+        this.followGraphIndex = followGraphIndex;
+        this.executor = executor;
+        this.authorBatchSize = authorBatchSize;
+        this.prefetchPerAuthor = prefetchPerAuthor;
+    }
+
+    public List<FeedItem> page(Long viewerId, PageCursor after, int limit) {
+        return merge(viewerId, followGraphIndex.followingIds(viewerId), after, limit);
+    }
+
+    List<FeedItem> merge(Long viewerId, List<Long> followeeIds, PageCursor after, int limit) {
+        PageCursor start = after != null ? after : new PageCursor(NEWEST, Long.MAX_VALUE);
+        int prefetch = Math.min(limit, prefetchPerAuthor);
+
+        // Fetch the followees' streams in parallel batches, one UNION ALL query per batch
+        List<CompletableFuture<List<Object[]>>> batches = new ArrayList<>();
+        for (int from = 0; from < followeeIds.size(); from += authorBatchSize) {
+            List<Long> batch = followeeIds.subList(from, Math.min(from + authorBatchSize, followeeIds.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> postRepository.findRecentPostKeysByAuthors(
+                    batch, start.createdAt(), start.id(), prefetch), executor));
+        }
+
+        Map<Long, AuthorStream> streams = new HashMap<>();
+        // The viewer's own posts, including private ones, form one more stream
+        AuthorStream own = new AuthorStream(viewerId, true);
+        own.addAll(postRepository.findOwnPostKeysBefore(viewerId, start.createdAt(), start.id(), Limit.of(prefetch)), prefetch);
+        streams.put(viewerId, own);
+
+        Map<Long, List<Object[]>> rowsByAuthor = new HashMap<>();
+        for (CompletableFuture<List<Object[]>> batch : batches) {
+            for (Object[] row : batch.join()) {
+                rowsByAuthor.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).add(row);
+            }
+        }
+        for (Long followeeId : followeeIds) {
+            if (!followeeId.equals(viewerId)) {
+                AuthorStream stream = new AuthorStream(followeeId, false);
+                stream.addAll(rowsByAuthor.getOrDefault(followeeId, List.of()), prefetch);
+                streams.put(followeeId, stream);
+            }
+        }
+
+        PriorityQueue<AuthorStream> heap = new PriorityQueue<>(Math.max(1, streams.size()),
+                (a, b) -> a.head().isNewerThan(b.head()) ? -1 : 1);
+        for (AuthorStream stream : streams.values()) {
+            if (stream.hasNext()) {
+                heap.add(stream);
+            }
+        }
+
+        List<FeedItem> result = new ArrayList<>(limit);
+        while (result.size() < limit && !heap.isEmpty()) {
+            AuthorStream stream = heap.poll();
+            result.add(stream.next());
+            if (!stream.hasNext() && !stream.exhausted) {
+                refill(stream, limit - result.size());
+            }
+            if (stream.hasNext()) {
+                heap.add(stream);
+            }
+        }
+        return result;
+    }
+
+    // Continues one author's stream from its own cursor
+    private void refill(AuthorStream stream, int count) {
+        if (count <= 0) {
+            return;
+        }
+        PageCursor cursor = stream.last.cursor();
+        List<Object[]> rows = stream.own
+                ? postRepository.findOwnPostKeysBefore(stream.authorId, cursor.createdAt(), cursor.id(), Limit.of(count))
+                : postRepository.findRecentPostKeysByAuthors(List.of(stream.authorId), cursor.createdAt(), cursor.id(), count);
+        stream.addAll(rows, count);
+    }
+
+    private static class AuthorStream {
+        private final Long authorId;
+        private final boolean own;
+        private final Deque<FeedItem> buffer = new ArrayDeque<>();
+        private FeedItem last;
+        private boolean exhausted;
+
+        AuthorStream(Long authorId, boolean own) {
+            this.authorId = authorId;
+            this.own = own;
+        }
+
+        void addAll(List<Object[]> rows, int requested) {
+            for (Object[] row : rows) {
+                buffer.add(new FeedItem(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), toLocalDateTime(row[2])));
+            }
+            // A short read means the author has nothing older
+            exhausted = rows.size() < requested;
+        }
+
+        boolean hasNext() {
+            return !buffer.isEmpty();
+        }
+
+        FeedItem head() {
+            return buffer.peekFirst();
+        }
+
+        FeedItem next() {
+            last = buffer.pollFirst();
+            return last;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.event.MediaReadyEvent;
+import com.example.socialmedia.event.PostDeletedEvent;
+import com.example.socialmedia.model.MediaVariant;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.repository.EntityCacheEvictor;
+import com.example.socialmedia.repository.MediaVariantRepository;
+import com.example.socialmedia.repository.PostRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates downscaled renditions of post images after upload. Jobs run on
+ * the bounded rendition pool and never on the uploading thread; when the
+ * queue is full a job is dropped and counted, and clients keep using the
+ * original. Each rendition is stored through the {@link MediaStore}, next
+ * to its original, and is deleted from it again with the post, as are the
+ * originals whether or not they were rendered.
+ */
+@Service
+public class RenditionService {
+
+    private final MediaStore mediaStore;
+    private final MediaVariantRepository mediaVariantRepository;
+    private final MediaUploadService mediaUploadService;
+    private final PostRepository postRepository;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final List<Integer> widths;
+    private final long maxPixels;
+    private final Counter rejected;
+    private final Counter failed;
+
+    public RenditionService(MediaStore mediaStore, MediaVariantRepository mediaVariantRepository,
+                            MediaUploadService mediaUploadService, PostRepository postRepository, EntityCacheEvictor entityCacheEvictor,
+                            TransactionTemplate transactionTemplate,
+                            @Qualifier("renditionExecutor") ThreadPoolTaskExecutor executor,
+                            MeterRegistry meterRegistry,
+                            @Value("${media.renditions.widths:320,640,1280}") List<Integer> widths,
+                            @Value("${media.renditions.max-pixels:50000000}") long maxPixels) {
+        this.mediaStore = mediaStore;
+        this.mediaVariantRepository = mediaVariantRepository;
+        this.mediaUploadService = mediaUploadService;
+        this.postRepository = postRepository;
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.widths = widths.stream().sorted().toList();
+        this.maxPixels = maxPixels;
+        Gauge.builder("media.renditions.queue", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                .description("Rendition jobs waiting for a worker")
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("media.renditions.rejected");
+        this.failed = meterRegistry.counter("media.renditions.failed");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMediaReady(MediaReadyEvent event) {
+        for (String url : event.mediaUrls()) {
+            try {
+                executor.execute(() -> render(event.postId(), url));
+            } catch (TaskRejectedException e) {
+                rejected.increment();
+                System.err.println("Rendition queue full, skipping " + url);
+            }
+        }
+    }
+
+    // Store deletes can be remote calls, so they run on the upload pool rather than the deleting request
+    @Async("mediaUploadExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        // Originals are not recorded as variants when rendering was skipped or failed
+        Set<String> urls = new LinkedHashSet<>(event.mediaUrls());
+        for (MediaVariant variant : mediaVariantRepository.findByPostIds(List.of(event.postId()))) {
+            urls.add(variant.getUrl());
+        }
+        mediaVariantRepository.deleteByPostId(event.postId());
+        // Blobs other posts share are kept
+        mediaUploadService.discard(urls);
+    }
+
+    public int queueDepth() {
+        return executor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    void render(Long postId, String originalUrl) {
+        try {
+            BufferedImage original = read(originalUrl);
+            if (original == null) {
+                return;
+            }
+            List<MediaVariant> variants = new ArrayList<>();
+            variants.add(new MediaVariant(null, postId, originalUrl, originalUrl, original.getWidth(), original.getHeight()));
+            for (int width : widths) {
+                if (width >= original.getWidth()) {
+                    break;
+                }
+                BufferedImage scaled = scale(original, width);
+                boolean alpha = scaled.getColorModel().hasAlpha();
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                ImageIO.write(scaled, alpha ? "png" : "jpg", encoded);
+                String url = mediaStore.store(new ByteArrayInputStream(encoded.toByteArray()),
+                        alpha ? "image/png" : "image/jpeg");
+                variants.add(new MediaVariant(null, postId, originalUrl, url, scaled.getWidth(), scaled.getHeight()));
+            }
+            // The post row stays locked until the variants are committed, so a delete either
+            // finds them or has already happened, in which case the new blobs are dropped here
+            boolean saved = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (postRepository.lockById(postId).isEmpty()) {
+                    return false;
+                }
+                mediaVariantRepository.saveAll(variants);
+                // New renditions change the post's representation
+                postRepository.touch(postId, LocalDateTime.now());
+                entityCacheEvictor.evict(Post.class, postId);
+                return true;
+            }));
+            if (!saved) {
+                mediaUploadService.discard(variants.stream().map(MediaVariant::getUrl).toList());
+            }
+        } catch (Exception e) {
+            failed.increment();
+            System.err.println("Failed to render " + originalUrl + ": " + e.getMessage());
+        }
+    }
+
+    // Checks the header dimensions before decoding so an oversized image cannot exhaust the heap
+    private BufferedImage read(String url) throws IOException {
+        try (InputStream in = mediaStore.open(url); ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    System.err.println("Skipping renditions for oversized image " + url);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves the image until close to the target, then does one bilinear step, which keeps quality acceptable
+    private static BufferedImage scale(BufferedImage source, int targetWidth) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        while (true) {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = next;
+            if (width == targetWidth) {
+                return current;
+            }
+        }
+    }
+}
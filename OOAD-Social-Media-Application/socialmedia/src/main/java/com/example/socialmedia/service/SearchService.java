@@ -0,0 +1,215 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.ScoreCursor;
+import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.event.PostCreatedEvent;
+import com.example.socialmedia.event.PostDeletedEvent;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Full-text search over post content and user names and bios, backed by
+ * in-memory {@link InvertedIndex}es. Posts are indexed when created and
+ * dropped when deleted; users whenever their row is written. A full rebuild
+ * streams both tables in id order, one batch at a time, into fresh indexes
+ * and swaps them in, replaying any changes that arrived meanwhile.
+ */
+@Service
+public class SearchService {
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    // A match in the username counts for more than the same word in the bio
+    private static final int USERNAME_WEIGHT = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserService userService;
+    private final PostPageAssembler postPageAssembler;
+    private final PostVisibility postVisibility;
+    private final int batchSize;
+
+    private volatile Indexes indexes = new Indexes(new InvertedIndex<>(), new InvertedIndex<>());
+
+    // Changes seen while a rebuild is running, replayed onto the new indexes; guarded by this
+    private List<Consumer<Indexes>> pending;
+
+    record PostMeta(long authorId, Post.PrivacyLevel privacyLevel) {
+    }
+
+    record Indexes(InvertedIndex<PostMeta> posts, InvertedIndex<Void> users) {
+    }
+
+    public SearchService(JdbcTemplate jdbcTemplate, UserService userService, PostPageAssembler postPageAssembler,
+                         PostVisibility postVisibility,
+                         @Value("${search.rebuild-batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userService = userService;
+        this.postPageAssembler = postPageAssembler;
+        this.postVisibility = postVisibility;
+        this.batchSize = batchSize;
+    }
+
+    public CursorPage<PostDTO> searchPosts(String username, String query, String cursor, int size) {
+        User viewer = userService.getCurrentUser(username);
+        Long viewerId = viewer.getId();
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PostVisibility.Viewer visibility = postVisibility.forScan(viewerId);
+        List<InvertedIndex.Hit> hits = indexes.posts().search(InvertedIndex.queryTerms(query), isPrefixQuery(query),
+                meta -> visibility.canView(meta.authorId(), meta.privacyLevel()),
+                ScoreCursor.decode(cursor), pageSize + 1);
+        return CursorPage.fromRankedRows(hits, pageSize, InvertedIndex.Hit::cursor,
+                page -> postPageAssembler.assembleIds(page.stream().map(InvertedIndex.Hit::id).toList(), viewer));
+    }
+
+    public CursorPage<UserDTO> searchUsers(String query, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<InvertedIndex.Hit> hits = indexes.users().search(InvertedIndex.queryTerms(query), isPrefixQuery(query),
+                meta -> true, ScoreCursor.decode(cursor), pageSize + 1);
+        return CursorPage.fromRankedRows(hits, pageSize, InvertedIndex.Hit::cursor,
+                page -> userService.getUserProfiles(page.stream().map(InvertedIndex.Hit::id).toList()));
+    }
+
+    // The last word is still being typed unless the query ends with a space
+    private boolean isPrefixQuery(String query) {
+        return query != null && !query.isEmpty() && !Character.isWhitespace(query.charAt(query.length() - 1));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        Map<String, Integer> terms = InvertedIndex.tokenize(event.content());
+        PostMeta meta = new PostMeta(event.authorId(), event.privacyLevel());
+        apply(current -> current.posts().put(event.postId(), terms, meta));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        apply(current -> current.posts().remove(event.postId()));
+    }
+
+    // Called from the entity listener; the index only sees committed rows
+    public void userSaved(User user) {
+        long id = user.getId();
+        Map<String, Integer> terms = userTerms(user.getUsername(), user.getBio());
+        afterCommit(() -> apply(current -> current.users().put(id, terms, null)));
+    }
+
+    public void userRemoved(User user) {
+        long id = user.getId();
+        afterCommit(() -> apply(current -> current.users().remove(id)));
+    }
+
+    private static Map<String, Integer> userTerms(String username, String bio) {
+        Map<String, Integer> terms = new TreeMap<>();
+        InvertedIndex.addTokens(terms, username, USERNAME_WEIGHT);
+        InvertedIndex.addTokens(terms, bio, 1);
+        return terms;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private synchronized void apply(Consumer<Indexes> change) {
+        if (pending != null) {
+            pending.add(change);
+        }
+        change.accept(indexes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${search.rebuild-interval-ms:21600000}",
+               fixedDelayString = "${search.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            Indexes rebuilt = new Indexes(new InvertedIndex<>(), new InvertedIndex<>());
+            loadPosts(rebuilt.posts());
+            loadUsers(rebuilt.users());
+            synchronized (this) {
+                pending.forEach(change -> change.accept(rebuilt));
+                indexes = rebuilt;
+            }
+            System.out.println("Rebuilt search index: " + rebuilt.posts().size() + " posts, " + rebuilt.users().size()
+                    + " users in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to rebuild search index: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+
+    // Keyset batches by id: only one batch of rows is held at a time
+    private void loadPosts(InvertedIndex<PostMeta> index) {
+        long afterId = 0;
+        int loaded;
+        do {
+            List<Long> ids = new ArrayList<>(batchSize);
+            jdbcTemplate.query("SELECT id, user_id, privacy_level, content FROM posts WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        String privacy = rs.getString("privacy_level");
+                        index.put(rs.getLong("id"), InvertedIndex.tokenize(rs.getString("content")),
+                                new PostMeta(rs.getLong("user_id"), privacy != null ? Post.PrivacyLevel.valueOf(privacy) : null));
+                        ids.add(rs.getLong("id"));
+                    }, afterId, batchSize);
+            loaded = ids.size();
+            if (loaded > 0) {
+                afterId = ids.get(loaded - 1);
+            }
+        } while (loaded == batchSize);
+    }
+
+    private void loadUsers(InvertedIndex<Void> index) {
+        long afterId = 0;
+        int loaded;
+        do {
+            List<Long> ids = new ArrayList<>(batchSize);
+            jdbcTemplate.query("SELECT id, username, bio FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        index.put(rs.getLong("id"), userTerms(rs.getString("username"), rs.getString("bio")), null);
+                        ids.add(rs.getLong("id"));
+                    }, afterId, batchSize);
+            loaded = ids.size();
+            if (loaded > 0) {
+                afterId = ids.get(loaded - 1);
+            }
+        } while (loaded == batchSize);
+    }
+}
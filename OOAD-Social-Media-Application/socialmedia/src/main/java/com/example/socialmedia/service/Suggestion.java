@@ -0,0 +1,5 @@
+package com.example.socialmedia.service;
+
+// A suggested account and how many of the viewer's followees follow it
+public record Suggestion(long userId, int mutualCount) {
+}
@@ -0,0 +1,200 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.event.FollowChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * "People you may know": accounts followed by the people a user follows,
+ * ranked by how many of them follow each account. The followee lists are
+ * split across a fork/join pool; each leaf collects and sorts its candidate
+ * ids, parents merge the sorted runs, and equal ids are counted at the end,
+ * so scoring never boxes an id.
+ * <p>
+ * Work per request is capped: followees who follow more than
+ * {@code max-followee-fanout} accounts are skipped (they add noise and cost),
+ * and followees are taken only until {@code max-edges-scanned} edges are
+ * covered. Results are cached per user; a user's own follow or unfollow
+ * drops their entry, while changes elsewhere in the graph age out with the TTL.
+ */
+@Component
+public class SuggestionEngine {
+
+    // Below this many followees a task scans sequentially instead of splitting
+    private static final int SEQUENTIAL_THRESHOLD = 32;
+
+    private static final Comparator<Suggestion> WORST_FIRST = Comparator.comparingInt(Suggestion::mutualCount)
+            .thenComparing(Comparator.comparingLong(Suggestion::userId).reversed());
+
+    private final FollowGraphIndex followGraphIndex;
+    private final ForkJoinPool pool;
+    private final int maxEdgesScanned;
+    private final int maxFolloweeFanout;
+    private final int maxResults;
+    private final Cache<Long, List<Suggestion>> cache;
+
+    public SuggestionEngine(FollowGraphIndex followGraphIndex, @Qualifier("suggestionPool") ForkJoinPool pool,
+                            MeterRegistry meterRegistry,
+                            @Value("${suggestions.max-edges-scanned:200000}") int maxEdgesScanned,
+                            @Value("${suggestions.max-followee-fanout:5000}") int maxFolloweeFanout,
+                            @Value("${suggestions.max-results:50}") int maxResults,
+                            @Value("${suggestions.cache.max-size:10000}") long cacheSize,
+                            @Value("${suggestions.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.followGraphIndex = followGraphIndex;
+        this.pool = pool;
+        this.maxEdgesScanned = maxEdgesScanned;
+        this.maxFolloweeFanout = maxFolloweeFanout;
+        this.maxResults = maxResults;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "suggestions");
+    }
+
+    // Empty until the graph index has loaded; scoring against the database fallback would be far too slow
+    public List<Suggestion> suggest(Long userId, int limit) {
+        if (!followGraphIndex.isReady()) {
+            return List.of();
+        }
+        List<Suggestion> suggestions = cache.get(userId, this::compute);
+        return suggestions.subList(0, Math.min(Math.max(limit, 0), suggestions.size()));
+    }
+
+    // Ordered after the graph index listener so a recompute never reads the old edges
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        cache.invalidate(event.followerId());
+    }
+
+    private List<Suggestion> compute(Long userId) {
+        return score(userId, followGraphIndex.following(userId), maxResults);
+    }
+
+    List<Suggestion> score(long userId, long[] followees, int topK) {
+        long[] sources = selectSources(followees);
+        long[] candidates = pool.invoke(new CandidateTask(userId, followees, sources, 0, sources.length));
+
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(topK + 1, WORST_FIRST);
+        int i = 0;
+        while (i < candidates.length) {
+            int runEnd = i + 1;
+            while (runEnd < candidates.length && candidates[runEnd] == candidates[i]) {
+                runEnd++;
+            }
+            best.offer(new Suggestion(candidates[i], runEnd - i));
+            if (best.size() > topK) {
+                best.poll();
+            }
+            i = runEnd;
+        }
+        List<Suggestion> ranked = new ArrayList<>(best);
+        ranked.sort(WORST_FIRST.reversed());
+        return ranked;
+    }
+
+    // Followees whose own lists are scanned, within the per-request edge budget
+    private long[] selectSources(long[] followees) {
+        long[] sources = new long[followees.length];
+        int count = 0;
+        long edges = 0;
+        for (long followee : followees) {
+            int fanout = followGraphIndex.followingCount(followee);
+            if (fanout == 0 || fanout > maxFolloweeFanout) {
+                continue;
+            }
+            if (edges + fanout > maxEdgesScanned) {
+                break;
+            }
+            edges += fanout;
+            sources[count++] = followee;
+        }
+        return Arrays.copyOf(sources, count);
+    }
+
+    // Returns the sorted candidate ids reachable through sources[from, to), with repeats
+    private class CandidateTask extends RecursiveTask<long[]> {
+        private final long userId;
+        private final long[] followees;
+        private final long[] sources;
+        private final int from;
+        private final int to;
+
+        CandidateTask(long userId, long[] followees, long[] sources, int from, int to) {
+            this.userId = userId;
+            this.followees = followees;
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            CandidateTask left = new CandidateTask(userId, followees, sources, from, middle);
+            left.fork();
+            long[] right = new CandidateTask(userId, followees, sources, middle, to).compute();
+            return merge(left.join(), right);
+        }
+
+        private long[] scan() {
+            // Each list is read once, so a concurrent follow cannot change its length mid-scan
+            long[][] lists = new long[to - from][];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                lists[i - from] = followGraphIndex.following(sources[i]);
+                size += lists[i - from].length;
+            }
+            long[] out = new long[size];
+            int count = 0;
+            for (long[] list : lists) {
+                for (long candidate : list) {
+                    if (candidate != userId && Arrays.binarySearch(followees, candidate) < 0) {
+                        out[count++] = candidate;
+                    }
+                }
+            }
+            long[] candidates = Arrays.copyOf(out, count);
+            Arrays.sort(candidates);
+            return candidates;
+        }
+
+        private long[] merge(long[] a, long[] b) {
+            long[] out = new long[a.length + b.length];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < a.length && j < b.length) {
+                out[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+            }
+            while (i < a.length) {
+                out[k++] = a[i++];
+            }
+            while (j < b.length) {
+                out[k++] = b[j++];
+            }
+            return out;
+        }
+    }
+}
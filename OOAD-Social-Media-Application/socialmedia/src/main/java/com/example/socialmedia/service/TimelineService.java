@@ -0,0 +1,101 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.PageCursor;
+import com.example.socialmedia.event.FollowChangedEvent;
+import com.example.socialmedia.event.PostCreatedEvent;
+import com.example.socialmedia.event.PostDeletedEvent;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.TimelineEntry;
+import com.example.socialmedia.repository.TimelineRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Fan-out-on-write home timelines. A new post's id is pushed into the
+ * timeline of every follower of its author (and the author's own), so reading
+ * a feed is a single index range scan instead of a join over the follow graph.
+ * Timelines are trimmed to a bounded number of entries per user.
+ */
+@Service
+public class TimelineService {
+
+    private final TimelineRepository timelineRepository;
+    private final int capacity;
+    private final int backfillSize;
+    private final int fanOutBatchSize;
+
+    public TimelineService(TimelineRepository timelineRepository,
+                           @Value("${timeline.capacity:800}") int capacity,
+                           @Value("${timeline.backfill-size:50}") int backfillSize,
+                           @Value("${timeline.fanout-batch-size:1000}") int fanOutBatchSize) {
+        this.timelineRepository = timelineRepository;
+        this.capacity = capacity;
+        this.backfillSize = backfillSize;
+        this.fanOutBatchSize = fanOutBatchSize;
+    }
+
+    public List<TimelineEntry> getTimeline(Long ownerId, PageCursor after, int limit) {
+        return after == null
+                ? timelineRepository.findLatest(ownerId, Limit.of(limit))
+                : timelineRepository.findBefore(ownerId, after.createdAt(), after.id(), Limit.of(limit));
+    }
+
+    public boolean hasTimeline(Long ownerId) {
+        return timelineRepository.existsByOwnerId(ownerId);
+    }
+
+    @Async("timelineExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        timelineRepository.insert(event.authorId(), event.postId(), event.createdAt());
+
+        // Private posts only ever appear in the author's own timeline
+        if (event.privacyLevel() == Post.PrivacyLevel.PRIVATE) {
+            return;
+        }
+        long afterId = 0;
+        while (true) {
+            List<Long> followerIds = timelineRepository.findFollowerIdsAfter(event.authorId(), afterId, fanOutBatchSize);
+            if (followerIds.isEmpty()) {
+                return;
+            }
+            timelineRepository.fanOut(event.authorId(), followerIds, event.postId(), event.createdAt());
+            afterId = followerIds.get(followerIds.size() - 1);
+        }
+    }
+
+    @Async("timelineExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        timelineRepository.deleteByPostId(event.postId());
+    }
+
+    @Async("timelineExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        if (event.following()) {
+            timelineRepository.backfill(event.followerId(), event.followeeId(), backfillSize);
+        } else {
+            timelineRepository.retractAuthor(event.followerId(), event.followeeId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${timeline.trim-interval-ms:600000}")
+    public void trimTimelines() {
+        for (Long ownerId : timelineRepository.findOwnersOverCapacity(capacity)) {
+            // The first entry past the capacity and everything older is dropped
+            List<TimelineEntry> cutoff = timelineRepository.findPageByOwner(ownerId, PageRequest.of(capacity, 1));
+            if (!cutoff.isEmpty()) {
+                TimelineEntry firstDropped = cutoff.get(0);
+                timelineRepository.deleteFrom(ownerId, firstDropped.getPostCreatedAt(), firstDropped.getPostId());
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.event.PostDeletedEvent;
+import com.example.socialmedia.model.Post;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ranks posts by recent engagement. Every post with likes or comments in the
+ * window gets a ring of time buckets; each slot packs the bucket number and
+ * its count into one long, so recording is a single CAS and a slot from an
+ * older bucket is reset by the same CAS that reuses it. A post's score sums
+ * its live buckets with an exponential decay by age.
+ * <p>
+ * A scheduled refresh recomputes scores, drops posts whose buckets have all
+ * aged out (so memory follows the number of active posts) and publishes the
+ * top K as an immutable snapshot that requests read without scanning.
+ */
+@Service
+public class TrendingService {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private static final Comparator<TrendingPost> LOWEST_FIRST = Comparator.comparingDouble(TrendingPost::score)
+            .thenComparingLong(TrendingPost::postId);
+
+    private final ConcurrentHashMap<Long, Engagement> engagements = new ConcurrentHashMap<>();
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final double[] decayByAge;
+    private final int topK;
+    private final int commentWeight;
+
+    private volatile List<TrendingPost> snapshot = List.of();
+
+    public record TrendingPost(long postId, long authorId, Post.PrivacyLevel privacyLevel, double score) {
+    }
+
+    private record Engagement(long authorId, Post.PrivacyLevel privacyLevel, AtomicLongArray slots) {
+    }
+
+    public TrendingService(MeterRegistry meterRegistry,
+                           @Value("${trending.bucket-seconds:300}") long bucketSeconds,
+                           @Value("${trending.buckets:12}") int bucketCount,
+                           @Value("${trending.half-life-buckets:3}") double halfLifeBuckets,
+                           @Value("${trending.top-k:100}") int topK,
+                           @Value("${trending.comment-weight:2}") int commentWeight) {
+        this.bucketMillis = bucketSeconds * 1000;
+        this.bucketCount = bucketCount;
+        this.decayByAge = new double[bucketCount];
+        for (int age = 0; age < bucketCount; age++) {
+            decayByAge[age] = Math.pow(0.5, age / halfLifeBuckets);
+        }
+        this.topK = topK;
+        this.commentWeight = commentWeight;
+        Gauge.builder("trending.posts.tracked", engagements, Map::size)
+                .description("Posts with engagement inside the trending window")
+                .register(meterRegistry);
+    }
+
+    public void recordLike(Post post) {
+        record(post, 1, System.currentTimeMillis());
+    }
+
+    public void recordComment(Post post) {
+        record(post, commentWeight, System.currentTimeMillis());
+    }
+
+    void record(Post post, int weight, long nowMillis) {
+        Engagement engagement = engagements.get(post.getId());
+        if (engagement == null) {
+            engagement = engagements.computeIfAbsent(post.getId(), id -> new Engagement(post.getUser().getId(),
+                    post.getPrivacyLevel(), new AtomicLongArray(bucketCount)));
+        }
+        long bucket = nowMillis / bucketMillis;
+        int slot = (int) (bucket % bucketCount);
+        AtomicLongArray slots = engagement.slots();
+        while (true) {
+            long current = slots.get(slot);
+            long updated = current >>> COUNT_BITS == bucket
+                    ? Math.min((current & COUNT_MASK) + weight, COUNT_MASK) | (bucket << COUNT_BITS)
+                    : (bucket << COUNT_BITS) | weight;
+            if (slots.compareAndSet(slot, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    // Highest score first; at most trending.top-k posts, as of the last refresh
+    public List<TrendingPost> snapshot() {
+        return snapshot;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        engagements.remove(event.postId());
+    }
+
+    @Scheduled(fixedDelayString = "${trending.refresh-ms:5000}")
+    public void refresh() {
+        refresh(System.currentTimeMillis());
+    }
+
+    void refresh(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        PriorityQueue<TrendingPost> best = new PriorityQueue<>(topK + 1, LOWEST_FIRST);
+        for (Map.Entry<Long, Engagement> entry : engagements.entrySet()) {
+            Engagement engagement = entry.getValue();
+            double score = score(engagement, bucket);
+            if (score == 0) {
+                engagements.remove(entry.getKey(), engagement);
+                // Put it back if a record landed between scoring and removal
+                if (score(engagement, bucket) > 0) {
+                    engagements.putIfAbsent(entry.getKey(), engagement);
+                }
+                continue;
+            }
+            best.offer(new TrendingPost(entry.getKey(), engagement.authorId(), engagement.privacyLevel(), score));
+            if (best.size() > topK) {
+                best.poll();
+            }
+        }
+        List<TrendingPost> ranked = new ArrayList<>(best);
+        ranked.sort(LOWEST_FIRST.reversed());
+        snapshot = List.copyOf(ranked);
+    }
+
+    private double score(Engagement engagement, long bucket) {
+        AtomicLongArray slots = engagement.slots();
+        double score = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long value = slots.get(i);
+            long age = bucket - (value >>> COUNT_BITS);
+            if (value != 0 && age >= 0 && age < bucketCount) {
+                score += (value & COUNT_MASK) * decayByAge[(int) age];
+            }
+        }
+        return score;
+    }
+}
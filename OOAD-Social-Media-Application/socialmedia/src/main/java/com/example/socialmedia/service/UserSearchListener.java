@@ -0,0 +1,31 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+// Keeps the user search index in step with registrations, profile changes and deletions
+@Component
+public class UserSearchListener {
+
+    private final SearchService searchService;
+
+    // Lazy: the listener is created with the EntityManagerFactory, which the search service's dependencies need
+    public UserSearchListener(@Lazy SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void userSaved(User user) {
+        searchService.userSaved(user);
+    }
+
+    @PostRemove
+    public void userRemoved(User user) {
+        searchService.userRemoved(user);
+    }
+}
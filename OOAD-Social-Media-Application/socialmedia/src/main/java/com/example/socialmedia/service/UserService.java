@@ -1,26 +1,60 @@
 package com.example.socialmedia.service;
 
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.PageCursor;
+import com.example.socialmedia.dto.SuggestionDTO;
 import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.event.FollowChangedEvent;
+import com.example.socialmedia.exception.BadRequestException;
 import com.example.socialmedia.exception.ResourceNotFoundException;
+import com.example.socialmedia.model.Follow;
 import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.EntityCacheEvictor;
+import com.example.socialmedia.repository.FollowRepository;
 import com.example.socialmedia.repository.UserRepository;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import com.example.socialmedia.security.UserIdentityCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final UserRepository userRepository;
+    private final FollowRepository followRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final SuggestionEngine suggestionEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityCacheEvictor entityCacheEvictor;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, FollowRepository followRepository,
+                       UserIdentityCache userIdentityCache, SuggestionEngine suggestionEngine,
+                       ApplicationEventPublisher eventPublisher, EntityCacheEvictor entityCacheEvictor) {
         this.userRepository = userRepository;
+        this.followRepository = followRepository;
+        this.userIdentityCache = userIdentityCache;
+        this.suggestionEngine = suggestionEngine;
+        this.eventPublisher = eventPublisher;
+        this.entityCacheEvictor = entityCacheEvictor;
     }
 
+    // Resolves the id through the identity cache and returns a lazy reference,
+    // so callers that only need the id or an association target skip the users query
     public User getCurrentUser(String username) {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        return userRepository.getReferenceById(userIdentityCache.get(username).id());
     }
 
+    @Transactional(readOnly = true)
     public UserDTO getUserProfile(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
@@ -28,28 +62,100 @@ public class UserService {
         return mapToDTO(user);
     }
 
+    @Transactional(readOnly = true)
+    public ContentVersion getUserProfileVersion(Long userId) {
+        LocalDateTime modifiedAt = userRepository.findModifiedAtById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        return ContentVersion.of("u" + userId, modifiedAt);
+    }
+
+    // A single-row insert; counters and listeners only see edges that actually changed
+    @Transactional
     public void followUser(String currentUsername, Long userToFollowId) {
-        User currentUser = getCurrentUser(currentUsername);
-        User userToFollow = userRepository.findById(userToFollowId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userToFollowId));
-        
-        userToFollow.getFollowers().add(currentUser);
-        currentUser.getFollowing().add(userToFollow);
-        
-        userRepository.save(currentUser);
-        userRepository.save(userToFollow);
+        Long currentUserId = checkFollowTarget(currentUsername, userToFollowId);
+        if (followRepository.insert(currentUserId, userToFollowId, LocalDateTime.now()) == 1) {
+            adjustFollowCounters(currentUserId, userToFollowId, 1);
+            eventPublisher.publishEvent(new FollowChangedEvent(currentUserId, userToFollowId, true));
+        }
     }
 
+    @Transactional
     public void unfollowUser(String currentUsername, Long userToUnfollowId) {
-        User currentUser = getCurrentUser(currentUsername);
-        User userToUnfollow = userRepository.findById(userToUnfollowId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userToUnfollowId));
-        
-        userToUnfollow.getFollowers().remove(currentUser);
-        currentUser.getFollowing().remove(userToUnfollow);
-        
-        userRepository.save(currentUser);
-        userRepository.save(userToUnfollow);
+        Long currentUserId = checkFollowTarget(currentUsername, userToUnfollowId);
+        if (followRepository.delete(currentUserId, userToUnfollowId) == 1) {
+            adjustFollowCounters(currentUserId, userToUnfollowId, -1);
+            eventPublisher.publishEvent(new FollowChangedEvent(currentUserId, userToUnfollowId, false));
+        }
+    }
+
+    public CursorPage<UserDTO> getFollowers(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageCursor after = PageCursor.decode(cursor);
+        List<Follow> rows = after == null
+                ? followRepository.findLatestFollowers(userId, Limit.of(pageSize + 1))
+                : followRepository.findFollowersBefore(userId, after.createdAt(), after.id(), Limit.of(pageSize + 1));
+        return CursorPage.fromRows(rows, pageSize, follow -> new PageCursor(follow.getCreatedAt(), follow.getFollowerId()),
+                page -> getUserProfiles(page.stream().map(Follow::getFollowerId).toList()));
+    }
+
+    public CursorPage<UserDTO> getFollowing(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageCursor after = PageCursor.decode(cursor);
+        List<Follow> rows = after == null
+                ? followRepository.findLatestFollowing(userId, Limit.of(pageSize + 1))
+                : followRepository.findFollowingBefore(userId, after.createdAt(), after.id(), Limit.of(pageSize + 1));
+        return CursorPage.fromRows(rows, pageSize, follow -> new PageCursor(follow.getCreatedAt(), follow.getFolloweeId()),
+                page -> getUserProfiles(page.stream().map(Follow::getFolloweeId).toList()));
+    }
+
+    public List<SuggestionDTO> getSuggestions(String username, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Suggestion> suggestions = suggestionEngine.suggest(userIdentityCache.get(username).id(), size);
+        Map<Long, User> users = findUsers(suggestions.stream().map(Suggestion::userId).toList());
+        return suggestions.stream()
+                .filter(suggestion -> users.containsKey(suggestion.userId()))
+                .map(suggestion -> {
+                    SuggestionDTO dto = new SuggestionDTO();
+                    dto.setUser(mapToDTO(users.get(suggestion.userId())));
+                    dto.setMutualCount(suggestion.mutualCount());
+                    return dto;
+                })
+                .toList();
+    }
+
+    private Long checkFollowTarget(String currentUsername, Long targetUserId) {
+        Long currentUserId = userIdentityCache.get(currentUsername).id();
+        if (currentUserId.equals(targetUserId)) {
+            throw new BadRequestException("You cannot follow yourself");
+        }
+        if (!userRepository.existsById(targetUserId)) {
+            throw new ResourceNotFoundException("User not found with id: " + targetUserId);
+        }
+        return currentUserId;
+    }
+
+    // Rows are updated in id order so concurrent follows in both directions cannot deadlock
+    private void adjustFollowCounters(Long followerId, Long followeeId, int delta) {
+        LocalDateTime now = LocalDateTime.now();
+        if (followerId < followeeId) {
+            userRepository.adjustFollowingCount(followerId, delta, now);
+            userRepository.adjustFollowersCount(followeeId, delta, now);
+        } else {
+            userRepository.adjustFollowersCount(followeeId, delta, now);
+            userRepository.adjustFollowingCount(followerId, delta, now);
+        }
+        entityCacheEvictor.evict(User.class, List.of(followerId, followeeId));
+    }
+
+    // One query for the whole list, returned in the given order; ids that no longer exist are skipped
+    public List<UserDTO> getUserProfiles(List<Long> ids) {
+        Map<Long, User> users = findUsers(ids);
+        return ids.stream().map(users::get).filter(Objects::nonNull).map(this::mapToDTO).toList();
+    }
+
+    private Map<Long, User> findUsers(List<Long> ids) {
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
     }
 
     private UserDTO mapToDTO(User user) {
@@ -59,8 +165,8 @@ public class UserService {
         userDTO.setEmail(user.getEmail());
         userDTO.setProfilePicture(user.getProfilePicture());
         userDTO.setBio(user.getBio());
-        userDTO.setFollowersCount(user.getFollowers().size());
-        userDTO.setFollowingCount(user.getFollowing().size());
+        userDTO.setFollowersCount(user.getFollowersCount());
+        userDTO.setFollowingCount(user.getFollowingCount());
         return userDTO;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.example.socialmedia;
+
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.UserRepository;
+import com.example.socialmedia.security.JwtUtil;
+
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fixtures and waits shared by the Spring Boot tests
+public final class TestSupport {
+
+	private TestSupport() {
+	}
+
+	public static User createUser(UserRepository userRepository, String username) {
+		return createUser(userRepository, username, null);
+	}
+
+	public static User createUser(UserRepository userRepository, String username, String bio) {
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@example.com");
+		user.setPassword("secret");
+		user.setBio(bio);
+		return userRepository.save(user);
+	}
+
+	// Authorization header value for an existing user
+	public static String bearerToken(JwtUtil jwtUtil, UserRepository userRepository, String username) {
+		User user = userRepository.findByUsername(username).orElseThrow();
+		return "Bearer " + jwtUtil.generateToken(org.springframework.security.core.userdetails.User
+				.withUsername(username).password("").authorities("ROLE_USER").build(), user.getId());
+	}
+
+	// Polls for up to ten seconds for work done on background executors
+	public static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		for (int attempt = 0; attempt < 100 && !condition.getAsBoolean(); attempt++) {
+			Thread.sleep(100);
+		}
+		assertThat(condition.getAsBoolean()).isTrue();
+	}
+}
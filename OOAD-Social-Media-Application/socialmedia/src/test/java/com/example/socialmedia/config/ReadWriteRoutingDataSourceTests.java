@@ -0,0 +1,156 @@
+package com.example.socialmedia.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static com.example.socialmedia.TestSupport.awaitTrue;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two embedded H2 databases stand in for the primary and a replica
+class ReadWriteRoutingDataSourceTests {
+
+	private final DataSource primary = database("routing_primary");
+	private final DataSource replicaDatabase = database("routing_replica");
+	private final FlakyDataSource replica = new FlakyDataSource(replicaDatabase);
+
+	private ReadWriteRoutingDataSource routing;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+
+	@BeforeEach
+	void setUp() {
+		for (DataSource dataSource : List.of(primary, replicaDatabase)) {
+			JdbcTemplate setup = new JdbcTemplate(dataSource);
+			setup.execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(20))");
+			setup.execute("CREATE TABLE IF NOT EXISTS replica_status (lag BIGINT)");
+			setup.execute("DELETE FROM marker");
+			setup.execute("DELETE FROM replica_status");
+		}
+		new JdbcTemplate(primary).update("INSERT INTO marker VALUES ('primary')");
+		new JdbcTemplate(replicaDatabase).update("INSERT INTO marker VALUES ('replica')");
+		setLag(0);
+
+		routing = new ReadWriteRoutingDataSource(primary, List.of(replica),
+				"SELECT lag AS seconds_behind_source FROM replica_status", "seconds_behind_source", 5,
+				Duration.ofMinutes(1), new SimpleMeterRegistry());
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@AfterEach
+	void clearUser() throws Exception {
+		SecurityContextHolder.clearContext();
+		routing.close();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToAHealthyReplica() {
+		assertThat(readOnlyMarker()).isEqualTo("primary");
+
+		routing.checkReplicas();
+		assertThat(readOnlyMarker()).isEqualTo("replica");
+		String readWriteMarker = readWrite.execute(status -> marker());
+		assertThat(readWriteMarker).isEqualTo("primary");
+		assertThat(marker()).isEqualTo("primary");
+	}
+
+	@Test
+	void writersReadTheirOwnWritesFromThePrimary() {
+		routing.checkReplicas();
+		signIn("writer");
+		readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET name = 'written'"));
+		assertThat(readOnlyMarker()).isEqualTo("written");
+
+		signIn("reader");
+		assertThat(readOnlyMarker()).isEqualTo("replica");
+	}
+
+	@Test
+	void laggingOrFailingReplicasFallBackToThePrimary() {
+		setLag(30);
+		routing.checkReplicas();
+		assertThat(readOnlyMarker()).isEqualTo("primary");
+
+		setLag(1);
+		routing.checkReplicas();
+		assertThat(readOnlyMarker()).isEqualTo("replica");
+
+		replica.failing = true;
+		assertThat(readOnlyMarker()).isEqualTo("primary");
+		routing.checkReplicas();
+		assertThat(readOnlyMarker()).isEqualTo("primary");
+
+		replica.failing = false;
+		routing.checkReplicas();
+		assertThat(readOnlyMarker()).isEqualTo("replica");
+	}
+
+	@Test
+	void replicasAreProbedOnTheirOwnThread() throws InterruptedException {
+		routing.startProbing(Duration.ofMillis(50));
+		awaitTrue(() -> "replica".equals(readOnlyMarker()));
+
+		setLag(30);
+		awaitTrue(() -> "primary".equals(readOnlyMarker()));
+	}
+
+	private String readOnlyMarker() {
+		return readOnly.execute(status -> marker());
+	}
+
+	private String marker() {
+		return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+	}
+
+	private void setLag(long seconds) {
+		JdbcTemplate replicaTemplate = new JdbcTemplate(replicaDatabase);
+		replicaTemplate.update("DELETE FROM replica_status");
+		replicaTemplate.update("INSERT INTO replica_status VALUES (?)", seconds);
+	}
+
+	private void signIn(String username) {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(username, null, List.of()));
+	}
+
+	private static DataSource database(String name) {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+	}
+
+	private static class FlakyDataSource extends DelegatingDataSource {
+		private volatile boolean failing;
+
+		FlakyDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			if (failing) {
+				throw new SQLException("Connection refused");
+			}
+			return super.getConnection();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.socialmedia.controller;
+
+import com.example.socialmedia.dto.CommentRequest;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import com.example.socialmedia.security.JwtUtil;
+import com.example.socialmedia.service.CommentService;
+import com.example.socialmedia.service.LikeBuffer;
+import com.example.socialmedia.service.PostService;
+import com.example.socialmedia.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static com.example.socialmedia.TestSupport.bearerToken;
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private LikeBuffer likeBuffer;
+
+	@Test
+	void unchangedPostIsNotModifiedUntilLikedOrCommented() throws Exception {
+		User author = createUser(userRepository, "etag_author");
+		createUser(userRepository, "etag_reader");
+		String token = bearerToken(jwtUtil, userRepository, "etag_reader");
+		Post post = createPost(author);
+		String url = "/api/posts/" + post.getId();
+
+		String etag = fetch(url, token);
+		assertNotModified(url, token, etag);
+
+		postService.likePost(post.getId(), "etag_reader");
+		String liked = fetch(url, token);
+		assertThat(liked).isNotEqualTo(etag);
+
+		// The flush moves the like from the buffer into the counter
+		// If-Modified-Since alone cannot see the buffered like, so it never earns a 304
+		mockMvc.perform(get(url)
+						.header(HttpHeaders.AUTHORIZATION, token)
+						.header(HttpHeaders.IF_MODIFIED_SINCE, ZonedDateTime.now().plusMinutes(1).format(DateTimeFormatter.RFC_1123_DATE_TIME)))
+				.andExpect(status().isOk());
+
+		likeBuffer.flush();
+		String flushed = fetch(url, token);
+		assertThat(flushed).isNotEqualTo(liked);
+		assertNotModified(url, token, flushed);
+
+		commentService.createComment(post.getId(), comment("fresh"), "etag_reader");
+		assertThat(fetch(url, token)).isNotEqualTo(flushed);
+	}
+
+	@Test
+	void commentPagesAndProfilesChangeWithTheirMarkers() throws Exception {
+		User author = createUser(userRepository, "etag_profile");
+		createUser(userRepository, "etag_fan");
+		String token = bearerToken(jwtUtil, userRepository, "etag_fan");
+		Post post = createPost(author);
+		String comments = "/api/posts/" + post.getId() + "/comments";
+		String profile = "/api/users/" + author.getId();
+
+		String commentsEtag = fetch(comments, token);
+		String profileEtag = fetch(profile, token);
+		assertNotModified(comments, token, commentsEtag);
+		assertNotModified(profile, token, profileEtag);
+
+		commentService.createComment(post.getId(), comment("first"), "etag_fan");
+		userService.followUser("etag_fan", author.getId());
+
+		assertThat(fetch(comments, token)).isNotEqualTo(commentsEtag);
+		assertThat(fetch(profile, token)).isNotEqualTo(profileEtag);
+	}
+
+	@Test
+	void privatePostsAreCheckedBeforeAnswering() throws Exception {
+		User author = createUser(userRepository, "etag_private");
+		createUser(userRepository, "etag_outsider");
+		Post post = createPost(author);
+		post.setPrivacyLevel(Post.PrivacyLevel.PRIVATE);
+		postRepository.save(post);
+		String etag = fetch("/api/posts/" + post.getId(), bearerToken(jwtUtil, userRepository, "etag_private"));
+
+		mockMvc.perform(get("/api/posts/" + post.getId())
+						.header(HttpHeaders.AUTHORIZATION, bearerToken(jwtUtil, userRepository, "etag_outsider"))
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isUnauthorized());
+	}
+
+	private String fetch(String url, String token) throws Exception {
+		MvcResult result = mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, token))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+				.andReturn();
+		String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotBlank();
+		return etag;
+	}
+
+	private void assertNotModified(String url, String token, String etag) throws Exception {
+		mockMvc.perform(get(url)
+						.header(HttpHeaders.AUTHORIZATION, token)
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().string(""));
+	}
+
+	private static CommentRequest comment(String content) {
+		CommentRequest request = new CommentRequest();
+		request.setContent(content);
+		return request;
+	}
+
+	private Post createPost(User author) {
+		Post post = new Post();
+		post.setContent("poll me");
+		post.setUser(author);
+		return postRepository.save(post);
+	}
+}
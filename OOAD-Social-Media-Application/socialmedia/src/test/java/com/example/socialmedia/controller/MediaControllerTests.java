@@ -0,0 +1,85 @@
+package com.example.socialmedia.controller;
+
+import com.example.socialmedia.exception.BadRequestException;
+import com.example.socialmedia.service.ImageUploadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MediaControllerTests {
+
+	private static final byte[] BLOB = "0123456789-local-media-store".getBytes(StandardCharsets.UTF_8);
+
+	@Autowired
+	private ImageUploadService imageUploadService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void duplicateUploadsShareOneContentAddressedUrl() throws Exception {
+		String first = upload();
+		String second = upload();
+
+		assertThat(first).isEqualTo(second);
+		assertThat(first).matches("http://localhost:8080/api/media/[0-9a-f]{64}\\.png");
+	}
+
+	@Test
+	void servesBlobsWithCachingAndRangeHeaders() throws Exception {
+		String path = upload().substring("http://localhost:8080".length());
+		String etag = mockMvc.perform(get(path))
+				.andExpect(status().isOk())
+				.andExpect(content().bytes(BLOB))
+				.andExpect(content().contentType("image/png"))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andExpect(header().string("X-Content-Type-Options", "nosniff"))
+				.andExpect(header().string("Content-Security-Policy", "default-src 'none'; sandbox"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=2-5"))
+				.andExpect(status().isPartialContent())
+				.andExpect(content().string("2345"))
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/" + BLOB.length));
+		mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=-5"))
+				.andExpect(status().isPartialContent())
+				.andExpect(content().string("store"));
+		mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=500-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + BLOB.length));
+		mockMvc.perform(get("/api/media/..%2F..%2Fpom.xml"))
+				.andExpect(status().is4xxClientError());
+		mockMvc.perform(get("/api/media/" + "0".repeat(64) + ".png"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void scriptableImageTypesAreRejected() {
+		String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"><script>alert(1)</script></svg>";
+		assertThatThrownBy(() -> imageUploadService.uploadImage("data:image/svg+xml;base64,"
+				+ Base64.getEncoder().encodeToString(svg.getBytes(StandardCharsets.UTF_8))))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	private String upload() throws Exception {
+		return imageUploadService.uploadImage("data:image/png;base64," + Base64.getEncoder().encodeToString(BLOB));
+	}
+}
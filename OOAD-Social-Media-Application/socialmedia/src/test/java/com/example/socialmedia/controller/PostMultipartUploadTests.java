@@ -0,0 +1,123 @@
+package com.example.socialmedia.controller;
+
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import com.example.socialmedia.security.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.socialmedia.TestSupport.awaitTrue;
+import static com.example.socialmedia.TestSupport.bearerToken;
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostMultipartUploadTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		if (userRepository.findByUsername("multipart_user").isEmpty()) {
+			createUser(userRepository, "multipart_user");
+		}
+		token = bearerToken(jwtUtil, userRepository, "multipart_user");
+	}
+
+	@Test
+	void partsAreStoredAndServedBack() throws Exception {
+		JsonNode post = createPost(false, image("a.png", "first image"), image("b.png", "second image"));
+
+		assertThat(post.get("mediaStatus").asText()).isEqualTo("READY");
+		assertThat(post.get("mediaUrls")).hasSize(2);
+		String url = post.get("mediaUrls").get(0).asText();
+		mockMvc.perform(get(url.substring("http://localhost:8080".length())))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("image/png"));
+	}
+
+	@Test
+	void deferredPartsAreSpooledAndAttachedAfterTheRequest() throws Exception {
+		JsonNode post = createPost(true, image("c.png", "deferred image"));
+		long postId = post.get("id").asLong();
+
+		assertThat(post.get("mediaStatus").asText()).isEqualTo("PENDING");
+		awaitTrue(() -> postRepository.findById(postId).orElseThrow().getMediaStatus() == Post.MediaStatus.READY);
+	}
+
+	@Test
+	void nonImagePartsAreRejectedWithoutLeavingSpoolFiles() throws Exception {
+		Path spoolDir = Path.of(System.getProperty("java.io.tmpdir"), "socialmedia-spool");
+		List<Path> before = spoolFiles(spoolDir);
+		mockMvc.perform(multipart("/api/posts")
+						.file(image("d.png", "spooled before the bad part"))
+						.file(new MockMultipartFile("files", "notes.txt", "text/plain", "hello".getBytes(StandardCharsets.UTF_8)))
+						.param("content", "with a text file")
+						.param("deferMedia", "true")
+						.header(HttpHeaders.AUTHORIZATION, token))
+				.andExpect(status().isBadRequest());
+		assertThat(before).containsAll(spoolFiles(spoolDir));
+	}
+
+	private static List<Path> spoolFiles(Path spoolDir) throws IOException {
+		try (Stream<Path> files = Files.list(spoolDir)) {
+			return files.toList();
+		}
+	}
+
+	private JsonNode createPost(boolean deferMedia, MockMultipartFile... files) throws Exception {
+		MockMultipartHttpServletRequestBuilder request = multipart("/api/posts");
+		for (MockMultipartFile file : files) {
+			request.file(file);
+		}
+		request.param("content", "multipart post")
+				.param("privacyLevel", "PUBLIC")
+				.param("deferMedia", String.valueOf(deferMedia))
+				.header(HttpHeaders.AUTHORIZATION, token);
+		String body = mockMvc.perform(request)
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private static MockMultipartFile image(String name, String content) {
+		return new MockMultipartFile("files", name, "image/png", content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.socialmedia.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdsTests {
+
+	private static final long NOW = Instant.parse("2026-06-01T12:00:00Z").toEpochMilli();
+
+	@Test
+	void idsEncodeTimeAndNodeAndStayJsonSafe() {
+		TimeOrderedIds ids = new TimeOrderedIds(5, () -> NOW);
+		long id = ids.next();
+
+		assertThat(TimeOrderedIds.timestampOf(id)).isEqualTo(Instant.ofEpochMilli(NOW));
+		assertThat(TimeOrderedIds.nodeOf(id)).isEqualTo(5);
+		// Still exact as a JavaScript number in 2093
+		long last = new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID,
+				() -> Instant.parse("2093-01-01T00:00:00Z").toEpochMilli()).next();
+		assertThat(last).isLessThan(1L << 53);
+		assertThatThrownBy(() -> new TimeOrderedIds(16, () -> NOW)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void sequenceOverflowAndClockStepsBackStayIncreasing() {
+		AtomicLong clock = new AtomicLong(NOW);
+		TimeOrderedIds ids = new TimeOrderedIds(1, clock::get);
+		long previous = 0;
+		for (int i = 0; i < 1000; i++) {
+			long id = ids.next();
+			assertThat(id).isGreaterThan(previous);
+			previous = id;
+		}
+		// 1000 ids in one millisecond borrow from the following ones
+		assertThat(TimeOrderedIds.timestampOf(previous)).isAfter(Instant.ofEpochMilli(NOW));
+
+		clock.set(NOW - 60_000);
+		assertThat(ids.next()).isGreaterThan(previous);
+	}
+
+	@Test
+	void concurrentCallersNeverShareAnId() throws InterruptedException {
+		TimeOrderedIds ids = new TimeOrderedIds(0, System::currentTimeMillis);
+		long[][] issued = new long[8][50_000];
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < issued.length; t++) {
+			long[] mine = issued[t];
+			threads.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < mine.length; i++) {
+					mine[i] = ids.next();
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		long distinct = Arrays.stream(issued).flatMapToLong(Arrays::stream).distinct().count();
+		assertThat(distinct).isEqualTo(8 * 50_000);
+		for (long[] mine : issued) {
+			assertThat(mine).isSorted();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.example.socialmedia.security;
+
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.socialmedia.TestSupport.bearerToken;
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void tokensOfLockedOrDeletedUsersAreRejected() throws Exception {
+		User locked = createUser(userRepository, "filter_locked");
+		String lockedToken = bearerToken(jwtUtil, userRepository, "filter_locked");
+		mockMvc.perform(get("/api/users/{id}", locked.getId()).header(HttpHeaders.AUTHORIZATION, lockedToken))
+				.andExpect(status().isOk());
+
+		locked.setLocked(true);
+		userRepository.save(locked);
+		mockMvc.perform(get("/api/users/{id}", locked.getId()).header(HttpHeaders.AUTHORIZATION, lockedToken))
+				.andExpect(status().isForbidden());
+
+		// Deleting and registering the name again must not revive the old token
+		User deleted = createUser(userRepository, "filter_deleted");
+		String deletedToken = bearerToken(jwtUtil, userRepository, "filter_deleted");
+		userRepository.delete(deleted);
+		mockMvc.perform(get("/api/users/{id}", locked.getId()).header(HttpHeaders.AUTHORIZATION, deletedToken))
+				.andExpect(status().isForbidden());
+		createUser(userRepository, "filter_deleted");
+		mockMvc.perform(get("/api/users/{id}", locked.getId()).header(HttpHeaders.AUTHORIZATION, deletedToken))
+				.andExpect(status().isForbidden());
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.socialmedia.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTests {
+
+	private static final String SECRET = "test-secret-key-that-is-long-enough-for-hs256-signing";
+
+	private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000L);
+
+	private final UserDetails userDetails = User.withUsername("jwt_user").password("hash").authorities("ROLE_USER").build();
+
+	@Test
+	void parseTokenReturnsEmbeddedIdentity() {
+		TokenDetails token = jwtUtil.parseToken(jwtUtil.generateToken(userDetails, 42L));
+
+		assertThat(token.username()).isEqualTo("jwt_user");
+		assertThat(token.userId()).isEqualTo(42L);
+		assertThat(token.roles()).containsExactly("ROLE_USER");
+		assertThat(token.expiresAt()).isAfter(new Date().toInstant());
+		assertThat(token.isSelfContained()).isTrue();
+
+		assertThat(jwtUtil.parseToken(jwtUtil.generateToken(userDetails)).isSelfContained()).isFalse();
+	}
+
+	@Test
+	void tamperedAndExpiredTokensAreRejected() {
+		String jwt = jwtUtil.generateToken(userDetails, 42L);
+		// Flip a character well inside the signature; the last one only partly encodes it
+		int at = jwt.length() - 10;
+		String tampered = jwt.substring(0, at) + (jwt.charAt(at) == 'A' ? 'B' : 'A') + jwt.substring(at + 1);
+		String expired = new JwtUtil(SECRET, -1_000L).generateToken(userDetails, 42L);
+
+		assertThatThrownBy(() -> jwtUtil.parseToken(tampered)).isInstanceOf(JwtException.class);
+		assertThatThrownBy(() -> jwtUtil.parseToken(expired)).isInstanceOf(JwtException.class);
+	}
+
+	// Run with -Dbenchmarks=true; single thread, so the rates are per core
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void compareValidationThroughput() {
+		String jwt = jwtUtil.generateToken(userDetails, 42L);
+
+		// The previous flow: a new key and parser for each of the three parses per request
+		Supplier<Claims> legacyParse = () -> Jwts.parserBuilder()
+				.setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+				.build()
+				.parseClaimsJws(jwt)
+				.getBody();
+		Runnable legacy = () -> {
+			String username = legacyParse.get().getSubject();
+			boolean valid = username.equals(legacyParse.get().getSubject())
+					&& !legacyParse.get().getExpiration().before(new Date());
+			assertThat(valid).isTrue();
+		};
+		Runnable current = () -> assertThat(jwtUtil.parseToken(jwt).username()).isEqualTo("jwt_user");
+
+		System.out.println("JWT validation before: " + tokensPerSecond(legacy) + " tokens/s per core");
+		System.out.println("JWT validation after:  " + tokensPerSecond(current) + " tokens/s per core");
+	}
+
+	private long tokensPerSecond(Runnable validation) {
+		for (int i = 0; i < 20_000; i++) {
+			validation.run();
+		}
+		int iterations = 100_000;
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			validation.run();
+		}
+		return iterations * 1_000_000_000L / (System.nanoTime() - start);
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.socialmedia.security;
+
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class UserIdentityCacheTests {
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void repeatedLookupsHitTheCacheUntilTheUserChanges() {
+		User user = new User();
+		user.setUsername("cached_user");
+		user.setEmail("cached_user@example.com");
+		user.setPassword("old-hash");
+		userRepository.save(user);
+
+		long hits = userIdentityCache.stats().hitCount();
+		userDetailsService.loadUserByUsername("cached_user");
+		assertThat(userIdentityCache.get("cached_user").locked()).isFalse();
+		assertThat(userIdentityCache.stats().hitCount()).isEqualTo(hits + 1);
+
+		user.setLocked(true);
+		user.setPassword("new-hash");
+		userRepository.save(user);
+		assertThat(userIdentityCache.get("cached_user").locked()).isTrue();
+		assertThat(userDetailsService.loadUserByUsername("cached_user").getPassword()).isEqualTo("new-hash");
+
+		userRepository.delete(userRepository.findByUsername("cached_user").orElseThrow());
+		assertThatThrownBy(() -> userIdentityCache.get("cached_user"))
+				.isInstanceOf(UsernameNotFoundException.class);
+	}
+}
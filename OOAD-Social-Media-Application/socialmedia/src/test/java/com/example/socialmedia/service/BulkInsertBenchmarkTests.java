@@ -0,0 +1,138 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.model.Comment;
+import com.example.socialmedia.model.IdentityComment;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.function.BiFunction;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BulkInsertBenchmarkTests {
+
+	private static final int ROWS = 20_000;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+	private int batchSize;
+
+	private User user;
+
+	private Post post;
+
+	@BeforeEach
+	void setUp() {
+		String username = "bulk_insert_" + System.nanoTime();
+		user = createUser(userRepository, username);
+		post = new Post();
+		post.setContent("bulk");
+		post.setUser(user);
+		postRepository.save(post);
+	}
+
+	@Test
+	void timeOrderedIdsAreInsertedInJdbcBatches() {
+		int rows = batchSize * 4;
+		Run identity = insert(rows, this::identityComment);
+		Run timeOrdered = insert(rows, this::comment);
+
+		// Hibernate cannot batch IDENTITY inserts: each one waits for its generated key
+		assertThat(identity.batches()).isZero();
+		assertThat(identity.statementsPrepared()).isGreaterThanOrEqualTo(rows);
+		assertThat(timeOrdered.batches()).isEqualTo(rows / batchSize);
+		assertThat(timeOrdered.statementsPrepared()).isLessThanOrEqualTo(rows / batchSize + 1);
+	}
+
+	// Before: the same entity with IDENTITY keys, one INSERT and generated-key read per row.
+	// After: @TimeOrderedId assigns ids up front and Hibernate sends batch_size rows per round trip.
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void batchedInsertsOutrunIdentityInserts() {
+		for (int round = 0; round < 3; round++) {
+			Run identity = insert(ROWS, this::identityComment);
+			Run timeOrdered = insert(ROWS, this::comment);
+
+			assertThat(identity.batches()).isZero();
+			assertThat(timeOrdered.batches()).isEqualTo(ROWS / batchSize);
+			System.out.println("JPA insert of " + ROWS + " comments: IDENTITY " + identity
+					+ ", @TimeOrderedId " + timeOrdered);
+		}
+	}
+
+	private IdentityComment identityComment(Session session, Integer i) {
+		IdentityComment comment = new IdentityComment();
+		comment.setContent("comment " + i);
+		comment.setPost(session.getReference(Post.class, post.getId()));
+		comment.setUser(session.getReference(User.class, user.getId()));
+		return comment;
+	}
+
+	private Comment comment(Session session, Integer i) {
+		Comment comment = new Comment();
+		comment.setContent("comment " + i);
+		comment.setPost(session.getReference(Post.class, post.getId()));
+		comment.setUser(session.getReference(User.class, user.getId()));
+		return comment;
+	}
+
+	// Persists the rows in one transaction, counting JDBC batches and prepared statements
+	private Run insert(int rows, BiFunction<Session, Integer, Object> entity) {
+		SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+		Statistics statistics = sessionFactory.getStatistics();
+		BatchCounter batches = new BatchCounter();
+		statistics.clear();
+		long start = System.nanoTime();
+		try (Session session = sessionFactory.withOptions().eventListeners(batches).openSession()) {
+			session.getTransaction().begin();
+			for (int i = 0; i < rows; i++) {
+				session.persist(entity.apply(session, i));
+			}
+			session.getTransaction().commit();
+		}
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(rows);
+		return new Run(rows, millis, batches.count, statistics.getPrepareStatementCount());
+	}
+
+	private record Run(int rows, long millis, int batches, long statementsPrepared) {
+		@Override
+		public String toString() {
+			return millis + "ms (" + rows * 1000L / Math.max(millis, 1) + " rows/s, " + batches + " JDBC batches, "
+					+ statementsPrepared + " statements)";
+		}
+	}
+
+	private static class BatchCounter implements SessionEventListener {
+
+		private int count;
+
+		@Override
+		public void jdbcExecuteBatchEnd() {
+			count++;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.exception.BadRequestException;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class FeedPaginationTests {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Test
+	void cursorWalksEveryPublicPostOnceNewestFirst() {
+		User user = new User();
+		user.setUsername("scroller");
+		user.setEmail("scroller@example.com");
+		user.setPassword("secret");
+		userRepository.save(user);
+
+		// Several posts share a timestamp so the id tie-breaker matters
+		LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+		for (int i = 0; i < 12; i++) {
+			Post post = new Post();
+			post.setContent("post " + i);
+			post.setUser(user);
+			post.setCreatedAt(base.minusMinutes(i / 3));
+			postRepository.save(post);
+		}
+		long expected = postRepository.findAll().stream()
+				.filter(post -> post.getPrivacyLevel() == Post.PrivacyLevel.PUBLIC)
+				.count();
+
+		List<PostDTO> seen = new ArrayList<>();
+		String cursor = null;
+		CursorPage<PostDTO> page;
+		do {
+			page = postService.getFeed("scroller", cursor, 5, null);
+			seen.addAll(page.getContent());
+			cursor = page.getNextCursor();
+		} while (!page.isLast());
+
+		assertThat(page.getNextCursor()).isNull();
+		assertThat(seen).hasSize((int) expected);
+		assertThat(seen).extracting(PostDTO::getId).doesNotHaveDuplicates();
+		assertThat(seen.get(0).getCreatedAt()).isEqualTo(base);
+		for (int i = 1; i < seen.size(); i++) {
+			PostDTO previous = seen.get(i - 1);
+			PostDTO current = seen.get(i);
+			assertThat(current.getCreatedAt().isBefore(previous.getCreatedAt())
+					|| (current.getCreatedAt().isEqual(previous.getCreatedAt()) && current.getId() < previous.getId()))
+					.isTrue();
+		}
+	}
+
+	@Test
+	void malformedCursorIsRejected() {
+		assertThatThrownBy(() -> postService.getFeed("demouser", "not-a-cursor", 5, null))
+				.isInstanceOf(BadRequestException.class);
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.PostRequest;
+import com.example.socialmedia.exception.UnauthorizedException;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.Random;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class FollowGraphIndexTests {
+
+	@Autowired
+	private FollowGraphIndex followGraphIndex;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void indexTracksFollowsAndMatchesRebuild() {
+		User alice = createUser(userRepository, "graph_alice");
+		User bob = createUser(userRepository, "graph_bob");
+		User carol = createUser(userRepository, "graph_carol");
+		User dave = createUser(userRepository, "graph_dave");
+
+		userService.followUser("graph_alice", carol.getId());
+		userService.followUser("graph_alice", dave.getId());
+		userService.followUser("graph_bob", carol.getId());
+		userService.followUser("graph_bob", dave.getId());
+		userService.followUser("graph_bob", alice.getId());
+		userService.unfollowUser("graph_alice", dave.getId());
+
+		assertThat(followGraphIndex.follows(alice.getId(), carol.getId())).isTrue();
+		assertThat(followGraphIndex.follows(alice.getId(), dave.getId())).isFalse();
+		assertThat(followGraphIndex.followingCount(bob.getId())).isEqualTo(3);
+		assertThat(followGraphIndex.commonFollowing(alice.getId(), bob.getId())).containsExactly(carol.getId());
+
+		long edges = followGraphIndex.edgeCount();
+		followGraphIndex.rebuild();
+		assertThat(followGraphIndex.edgeCount()).isEqualTo(edges);
+		assertThat(followGraphIndex.following(bob.getId())).containsExactly(alice.getId(), carol.getId(), dave.getId());
+	}
+
+	@Test
+	void friendsPostsAreVisibleToFollowersOnly() {
+		User author = createUser(userRepository, "graph_author");
+		createUser(userRepository, "graph_follower");
+		createUser(userRepository, "graph_outsider");
+		userService.followUser("graph_follower", author.getId());
+
+		PostRequest request = new PostRequest();
+		request.setContent("friends only");
+		request.setPrivacyLevel(Post.PrivacyLevel.FRIENDS);
+		PostDTO post = postService.createPost("graph_author", request);
+
+		assertThat(postService.getPostById(post.getId(), "graph_follower").getId()).isEqualTo(post.getId());
+		assertThatThrownBy(() -> postService.getPostById(post.getId(), "graph_outsider"))
+				.isInstanceOf(UnauthorizedException.class);
+		// An unfollow written by another instance reaches this index only at the next rebuild
+		jdbcTemplate.update("DELETE FROM follows WHERE followee_id = ?", author.getId());
+		assertThat(followGraphIndex.follows(userRepository.findByUsername("graph_follower").orElseThrow().getId(),
+				author.getId())).isTrue();
+		assertThatThrownBy(() -> postService.getPostById(post.getId(), "graph_follower"))
+				.isInstanceOf(UnauthorizedException.class);
+	}
+
+	// Run with -Dbenchmarks=true
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void measureFootprintAndQueryLatency() {
+		// 100k users following 10-20 others each, skewed towards low ids like a popularity curve
+		int users = 100_000;
+		Random random = new Random(42);
+		FollowGraphIndex.Builder builder = new FollowGraphIndex.Builder();
+		for (long follower = 1; follower <= users; follower++) {
+			long[] followees = random.longs(10 + random.nextInt(11), 0, users)
+					.map(r -> 1 + (long) (users * Math.pow((double) r / users, 3)))
+					.distinct().sorted().toArray();
+			for (long followee : followees) {
+				builder.add(follower, followee);
+			}
+		}
+		Map<Long, long[]> graph = builder.build();
+
+		FollowGraphIndex index = new FollowGraphIndex(null, null, new SimpleMeterRegistry(), 50_000);
+		index.replaceWith(graph);
+
+		int queries = 1_000_000;
+		long hits = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			if (index.follows(1L + random.nextInt(users), 1L + random.nextInt(100))) {
+				hits++;
+			}
+		}
+		long membershipNanos = (System.nanoTime() - start) / queries;
+
+		start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			hits += index.commonFollowing(1L + random.nextInt(users), 1L + random.nextInt(users)).length;
+		}
+		long intersectionNanos = (System.nanoTime() - start) / queries;
+
+		System.out.println("Follow graph: " + index.edgeCount() + " edges, " + index.userCount() + " users, about "
+				+ index.bytesPerMillionEdges() / 1024 + "KB per million edges; membership " + membershipNanos
+				+ "ns, intersection " + intersectionNanos + "ns (" + hits + " hits)");
+	}
+}
@@ -0,0 +1,198 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.config.LikeConstraintMigration;
+import com.example.socialmedia.dto.LikeStatusDTO;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.LikeRepository;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class LikeBufferTests {
+
+	@Autowired
+	private LikeBuffer likeBuffer;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private LikeRepository likeRepository;
+
+	@Autowired
+	private LikeConstraintMigration likeConstraintMigration;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${likes.buffer.journal}")
+	private String journal;
+
+	@Test
+	void repeatedTapsCoalesceIntoOneWrite() {
+		User user = createUser(userRepository, "buffer_tapper");
+		Post post = createPost(user);
+
+		LikeStatusDTO first = postService.likePost(post.getId(), "buffer_tapper");
+		LikeStatusDTO second = postService.likePost(post.getId(), "buffer_tapper");
+		assertThat(first.getLikesCount()).isEqualTo(1);
+		assertThat(second.getLikesCount()).isEqualTo(1);
+		assertThat(likeRepository.existsByUserIdAndPostId(user.getId(), post.getId())).isFalse();
+		assertThat(postService.getPostById(post.getId(), "buffer_tapper").isLikedByCurrentUser()).isTrue();
+
+		likeBuffer.flush();
+		assertThat(likeRepository.existsByUserIdAndPostId(user.getId(), post.getId())).isTrue();
+		assertThat(likesCount(post)).isEqualTo(1);
+
+		// Unlike then like again before a flush leaves nothing to write
+		postService.unlikePost(post.getId(), "buffer_tapper");
+		assertThat(postService.likePost(post.getId(), "buffer_tapper").getLikesCount()).isEqualTo(1);
+		assertThat(likeBuffer.flush()).isZero();
+
+		assertThat(postService.unlikePost(post.getId(), "buffer_tapper").getLikesCount()).isZero();
+		assertThat(postService.unlikePost(post.getId(), "buffer_tapper").isLiked()).isFalse();
+		likeBuffer.flush();
+		assertThat(likeRepository.existsByUserIdAndPostId(user.getId(), post.getId())).isFalse();
+		assertThat(likesCount(post)).isZero();
+	}
+
+	@Test
+	void staleIntentsDoNotDoubleCount() {
+		User user = createUser(userRepository, "buffer_stale");
+		Post post = createPost(user);
+
+		// Both intents claim the database had no like; only one row can be inserted
+		likeBuffer.submit(user.getId(), post.getId(), true, () -> false);
+		likeBuffer.flush();
+		likeBuffer.submit(user.getId(), post.getId(), true, () -> false);
+		likeBuffer.flush();
+
+		assertThat(likesCount(post)).isEqualTo(1);
+		assertThat(likeBuffer.pendingDelta(post.getId())).isZero();
+	}
+
+	@Test
+	void intentsSubmittedDuringAFlushSeeTheLikeBeingWritten() throws Exception {
+		User user = createUser(userRepository, "buffer_racer");
+		Post post = createPost(user);
+		BooleanSupplier persisted = () -> likeRepository.existsByUserIdAndPostId(user.getId(), post.getId());
+		likeBuffer.submit(user.getId(), post.getId(), true, persisted);
+
+		// Another transaction holds the post row, so the flush stops at its counter update
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> holder = threads.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+				jdbcTemplate.queryForList("SELECT id FROM posts WHERE id = ? FOR UPDATE", post.getId());
+				locked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+			locked.await();
+			Future<Integer> flush = threads.submit(() -> likeBuffer.flush());
+			Thread.sleep(200);
+			assertThat(flush).isNotDone();
+
+			// The like is in flight, not yet committed: the unlike must still count as a change
+			assertThat(likeBuffer.submit(user.getId(), post.getId(), false, persisted)).isTrue();
+			assertThat(likeBuffer.pendingDelta(post.getId())).isZero();
+			assertThat(likeBuffer.pendingLiked(user.getId(), post.getId())).isFalse();
+
+			release.countDown();
+			holder.get(10, TimeUnit.SECONDS);
+			assertThat(flush.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+		} finally {
+			release.countDown();
+			threads.shutdown();
+		}
+		assertThat(likeBuffer.pendingDelta(post.getId())).isEqualTo(-1);
+		likeBuffer.flush();
+		assertThat(likeRepository.existsByUserIdAndPostId(user.getId(), post.getId())).isFalse();
+		assertThat(likesCount(post)).isZero();
+		assertThat(likeBuffer.pendingDelta(post.getId())).isZero();
+	}
+
+	@Test
+	void journaledIntentsAreReplayedOnStartup() throws Exception {
+		User user = createUser(userRepository, "buffer_journal");
+		Post post = createPost(user);
+		Path path = Path.of(journal);
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		Files.write(path, List.of(user.getId() + "," + post.getId() + ",true,false"));
+
+		likeBuffer.replayJournal();
+
+		assertThat(path).doesNotExist();
+		assertThat(likeRepository.existsByUserIdAndPostId(user.getId(), post.getId())).isTrue();
+		assertThat(likesCount(post)).isEqualTo(1);
+	}
+
+	@Test
+	void migrationRemovesDuplicatesBeforeAddingTheUniqueKey() {
+		User user = createUser(userRepository, "buffer_duplicate");
+		Post post = createPost(user);
+		jdbcTemplate.execute("ALTER TABLE likes DROP CONSTRAINT uk_likes_user_post");
+		try {
+			for (long id = 1; id <= 3; id++) {
+				jdbcTemplate.update("INSERT INTO likes (id, user_id, post_id, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)",
+						-id, user.getId(), post.getId());
+			}
+		} finally {
+			likeConstraintMigration.migrate();
+		}
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE post_id = ?", Integer.class, post.getId()))
+				.isEqualTo(1);
+		assertThat(likesCount(post)).isEqualTo(1);
+		assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO likes (id, user_id, post_id, created_at) " +
+				"VALUES (-4, ?, ?, CURRENT_TIMESTAMP)", user.getId(), post.getId()))
+				.isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	private int likesCount(Post post) {
+		return postRepository.findById(post.getId()).orElseThrow().getLikesCount();
+	}
+
+	private Post createPost(User author) {
+		Post post = new Post();
+		post.setContent("tap tap");
+		post.setUser(author);
+		post.setPrivacyLevel(Post.PrivacyLevel.PUBLIC);
+		return postRepository.save(post);
+	}
+}
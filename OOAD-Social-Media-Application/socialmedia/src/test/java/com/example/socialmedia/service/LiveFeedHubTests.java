@@ -0,0 +1,259 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.config.AsyncConfig;
+import com.example.socialmedia.dto.CommentRequest;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.PostRequest;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.UserRepository;
+import com.example.socialmedia.security.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.socialmedia.TestSupport.awaitTrue;
+import static com.example.socialmedia.TestSupport.bearerToken;
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+// Printing a result reads the response headers while the stream is still being written
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class LiveFeedHubTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Test
+	void followersReceivePostsLikesAndCommentsOfTheirFollowees() throws Exception {
+		User author = createUser(userRepository, "live_author");
+		createUser(userRepository, "live_follower");
+		createUser(userRepository, "live_stranger");
+		userService.followUser("live_follower", author.getId());
+		MvcResult follower = openStream("live_follower");
+		MvcResult stranger = openStream("live_stranger");
+		awaitContent(follower, "event:ready");
+		awaitContent(stranger, "event:ready");
+
+		PostRequest request = new PostRequest();
+		request.setContent("pushed, not polled");
+		PostDTO post = postService.createPost("live_author", request);
+		awaitContent(follower, "event:new-post");
+		assertThat(follower.getResponse().getContentAsString()).contains("\"postId\":" + post.getId());
+
+		postService.likePost(post.getId(), "live_stranger");
+		postService.likePost(post.getId(), "live_follower");
+		awaitContent(follower, "\"likesCount\":2");
+
+		CommentRequest comment = new CommentRequest();
+		comment.setContent("live comment");
+		commentService.createComment(post.getId(), comment, "live_stranger");
+		awaitContent(follower, "live comment");
+
+		PostRequest friendsOnly = new PostRequest();
+		friendsOnly.setContent("followers only");
+		friendsOnly.setPrivacyLevel(Post.PrivacyLevel.FRIENDS);
+		PostDTO friendsPost = postService.createPost("live_author", friendsOnly);
+		awaitContent(follower, "\"postId\":" + friendsPost.getId());
+
+		assertThat(stranger.getResponse().getContentAsString()).doesNotContain("new-post", "likes", "comment-created");
+	}
+
+	@Test
+	void followsMadeWhileConnectedChangeTheAudience() throws Exception {
+		User author = createUser(userRepository, "live_idol");
+		createUser(userRepository, "live_newcomer");
+		MvcResult newcomer = openStream("live_newcomer");
+		awaitContent(newcomer, "event:ready");
+
+		userService.followUser("live_newcomer", author.getId());
+		PostRequest first = new PostRequest();
+		first.setContent("welcome aboard");
+		postService.createPost("live_idol", first);
+		awaitContent(newcomer, "event:new-post");
+
+		userService.unfollowUser("live_newcomer", author.getId());
+		String before = newcomer.getResponse().getContentAsString();
+		PostRequest second = new PostRequest();
+		second.setContent("after the unfollow");
+		PostDTO unseen = postService.createPost("live_idol", second);
+		// The author's own stream proves the event was published
+		MvcResult own = openStream("live_idol");
+		awaitContent(own, "event:ready");
+		PostRequest third = new PostRequest();
+		third.setContent("to myself");
+		postService.createPost("live_idol", third);
+		awaitContent(own, "event:new-post");
+		assertThat(newcomer.getResponse().getContentAsString()).isEqualTo(before)
+				.doesNotContain("\"postId\":" + unseen.getId());
+	}
+
+	@Test
+	void fanOutDropsAndCountsEventsWhenItsQueueIsFull() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ThreadPoolTaskExecutor executor = new AsyncConfig().liveEventExecutor(registry, 1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			executor.execute(() -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			executor.execute(() -> {
+			});
+			executor.execute(() -> {
+				throw new AssertionError("ran on the caller");
+			});
+			assertThat(registry.counter("live.events.rejected").count()).isEqualTo(1);
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void slowConnectionsCoalesceCountsAndResyncAfterDrops() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		Counter dropped = registry.counter("dropped");
+		Counter coalesced = registry.counter("coalesced");
+		RecordingEmitter emitter = new RecordingEmitter();
+		// Drains run only when the test runs them, like a sender pool that is busy
+		List<Runnable> drains = new ArrayList<>();
+		LiveConnection connection = new LiveConnection(emitter, 3, drains::add, dropped, coalesced, () -> {
+		});
+
+		connection.offer(likes(1, 5));
+		connection.offer(newPost(10));
+		connection.offer(likes(1, 7));
+		assertThat(drains).hasSize(1);
+		drains.remove(0).run();
+		assertThat(emitter.sent).hasSize(2);
+		assertThat(emitter.sent.get(0)).contains("likes", "likesCount=7");
+		assertThat(emitter.sent.get(1)).contains("new-post", "postId=10");
+		assertThat(coalesced.count()).isEqualTo(1);
+
+		emitter.sent.clear();
+		for (long postId = 11; postId <= 14; postId++) {
+			connection.offer(newPost(postId));
+		}
+		drains.remove(0).run();
+		assertThat(emitter.sent).hasSize(4);
+		assertThat(emitter.sent.get(0)).contains("resync");
+		assertThat(emitter.sent.get(1)).contains("postId=12");
+		assertThat(emitter.sent.get(3)).contains("postId=14");
+		assertThat(dropped.count()).isEqualTo(1);
+	}
+
+	@Test
+	void connectionsWhoseClientStopsReadingAreClosed() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> sent = new ArrayList<>();
+		boolean[] completed = new boolean[1];
+		SseEmitter emitter = new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				sent.add(String.valueOf(builder.build()));
+			}
+
+			@Override
+			public void complete() {
+				completed[0] = true;
+			}
+		};
+		CountDownLatch closed = new CountDownLatch(1);
+		ExecutorService sender = Executors.newSingleThreadExecutor();
+		try {
+			Counter counter = new SimpleMeterRegistry().counter("unused");
+			LiveConnection connection = new LiveConnection(emitter, 8, sender, counter, counter, closed::countDown);
+			connection.offer(newPost(1));
+			assertThat(connection.closeIfStalled(TimeUnit.MINUTES.toNanos(1))).isFalse();
+			awaitTrue(() -> closed.getCount() == 0 || connection.closeIfStalled(TimeUnit.MILLISECONDS.toNanos(50)));
+			assertThat(closed.getCount()).isZero();
+
+			// Nothing more is queued for it; once the blocked write returns the stream is ended
+			connection.offer(newPost(2));
+			release.countDown();
+			awaitTrue(() -> completed[0]);
+			assertThat(sent).hasSize(1);
+		} finally {
+			release.countDown();
+			sender.shutdown();
+		}
+	}
+
+	private static LiveEvent likes(long postId, int count) {
+		return new LiveEvent("likes", "likes:" + postId, Map.of("postId", postId, "likesCount", count));
+	}
+
+	private static LiveEvent newPost(long postId) {
+		return new LiveEvent("new-post", null, Map.of("postId", postId));
+	}
+
+	private static class RecordingEmitter extends SseEmitter {
+
+		private final List<String> sent = new ArrayList<>();
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			StringBuilder event = new StringBuilder();
+			builder.build().forEach(part -> event.append(part.getData()));
+			sent.add(event.toString());
+		}
+	}
+
+	private MvcResult openStream(String username) throws Exception {
+		return mockMvc.perform(get("/api/posts/stream").header(HttpHeaders.AUTHORIZATION, bearerToken(jwtUtil, userRepository, username)))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+	}
+
+	private static void awaitContent(MvcResult stream, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!stream.getResponse().getContentAsString().contains(expected)) {
+			assertThat(System.currentTimeMillis()).as("waiting for " + expected).isLessThan(deadline);
+			Thread.sleep(20);
+		}
+	}
+}
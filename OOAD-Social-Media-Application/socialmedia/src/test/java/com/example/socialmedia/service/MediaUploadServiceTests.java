@@ -0,0 +1,140 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.PostRequest;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.socialmedia.TestSupport.awaitTrue;
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class MediaUploadServiceTests {
+
+	private static final long UPLOAD_MILLIS = 300;
+
+	@MockitoBean
+	private ImageUploadService imageUploadService;
+
+	@MockitoSpyBean
+	private MediaStore mediaStore;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private MediaUploadService mediaUploadService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@MockitoSpyBean
+	private PostRepository postRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		when(imageUploadService.uploadImage(anyString())).thenAnswer(invocation -> {
+			String image = invocation.getArgument(0);
+			Thread.sleep(UPLOAD_MILLIS);
+			if (image.startsWith("broken")) {
+				throw new IOException("upload rejected");
+			}
+			return "https://img.example.com/" + image + ".jpg";
+		});
+		if (!userRepository.existsByUsername("uploader")) {
+			createUser(userRepository, "uploader");
+		}
+	}
+
+	@Test
+	void imagesUploadConcurrently() {
+		long start = System.nanoTime();
+		PostDTO post = postService.createPost("uploader", postRequest(List.of("a", "b", "c", "d"), false));
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(post.getMediaStatus()).isEqualTo(Post.MediaStatus.READY);
+		assertThat(post.getMediaUrls()).hasSize(4);
+		assertThat(elapsedMillis).isLessThan(3 * UPLOAD_MILLIS);
+	}
+
+	@Test
+	void deferredPostIsSavedPendingAndCompletedInTheBackground() throws Exception {
+		PostDTO post = postService.createPost("uploader", postRequest(List.of("e", "f"), true));
+		PostDTO broken = postService.createPost("uploader", postRequest(List.of("g", "broken"), true));
+
+		assertThat(post.getMediaStatus()).isEqualTo(Post.MediaStatus.PENDING);
+		assertThat(post.getMediaUrls()).isEmpty();
+
+		awaitTrue(() -> postService.getPostById(post.getId(), "uploader").getMediaStatus() == Post.MediaStatus.READY);
+		assertThat(postService.getPostById(post.getId(), "uploader").getMediaUrls()).hasSize(2);
+		awaitTrue(() -> postRepository.findById(broken.getId()).orElseThrow().getMediaStatus() == Post.MediaStatus.FAILED);
+		// The image that did upload belongs to no post and is deleted again
+		verify(mediaStore, timeout(5000)).delete("https://img.example.com/g.jpg");
+	}
+
+	@Test
+	void likesCommittedWhileMediaIsAttachedAreKept() throws Exception {
+		PostDTO post = postService.createPost("uploader", postRequest(List.of(), false));
+		jdbcTemplate.update("UPDATE posts SET media_status = 'PENDING' WHERE id = ?", post.getId());
+		entityManager.getEntityManagerFactory().getCache().evict(Post.class, post.getId());
+		// Another transaction likes and comments on the post after the upload loaded it
+		doAnswer(invocation -> {
+			Post loaded = entityManager.find(Post.class, post.getId());
+			CompletableFuture.runAsync(() -> jdbcTemplate.update("UPDATE posts SET likes_count = likes_count + 1, "
+					+ "comments_count = comments_count + 1, comments_modified_at = CURRENT_TIMESTAMP WHERE id = ?",
+					post.getId())).join();
+			return Optional.of(loaded);
+		}).when(postRepository).findById(post.getId());
+
+		mediaUploadService.uploadAndAttach(post.getId(), List.of(() -> imageUploadService.uploadImage("i"))).join();
+
+		assertThat(postService.getPostById(post.getId(), "uploader").getMediaUrls())
+				.containsExactly("https://img.example.com/i.jpg");
+		Post saved = postRepository.findById(post.getId()).orElseThrow();
+		assertThat(saved.getLikesCount()).isEqualTo(1);
+		assertThat(saved.getCommentsCount()).isEqualTo(1);
+		assertThat(saved.getCommentsModifiedAt()).isNotNull();
+	}
+
+	@Test
+	void postsDeferTheirUploadsByDefault() {
+		PostRequest request = postRequest(List.of("h"), false);
+		request.setDeferMedia(null);
+		assertThat(postService.createPost("uploader", request).getMediaStatus()).isEqualTo(Post.MediaStatus.PENDING);
+	}
+
+	private PostRequest postRequest(List<String> images, boolean deferMedia) {
+		PostRequest request = new PostRequest();
+		request.setContent("post with media");
+		request.setMediaUrls(new HashSet<>(images));
+		request.setDeferMedia(deferMedia);
+		return request;
+	}
+}
@@ -0,0 +1,158 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CommentRequest;
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.NotificationDTO;
+import com.example.socialmedia.model.Notification;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class NotificationServiceTests {
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private NotificationBuffer notificationBuffer;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void burstsCoalescePerTargetAndKeepMergingWhileUnread() {
+		User author = createUser(userRepository, "notify_author");
+		createUser(userRepository, "notify_a");
+		createUser(userRepository, "notify_b");
+		User last = createUser(userRepository, "notify_c");
+		Post post = createPost(author);
+
+		postService.likePost(post.getId(), "notify_a");
+		postService.unlikePost(post.getId(), "notify_a");
+		postService.likePost(post.getId(), "notify_a");
+		postService.likePost(post.getId(), "notify_b");
+		postService.likePost(post.getId(), "notify_author");
+		commentService.createComment(post.getId(), comment(), "notify_b");
+		userService.followUser("notify_a", author.getId());
+		assertThat(notificationBuffer.flush()).isEqualTo(3);
+
+		assertThat(notificationService.getUnreadCount("notify_author").getUnreadCount()).isEqualTo(3);
+		NotificationDTO like = find(unread("notify_author"), Notification.Type.LIKE);
+		assertThat(like.getTargetId()).isEqualTo(post.getId());
+		assertThat(like.getActorCount()).isEqualTo(2);
+
+		postService.likePost(post.getId(), "notify_c");
+		notificationBuffer.flush();
+
+		List<NotificationDTO> merged = unread("notify_author");
+		assertThat(merged).hasSize(3);
+		assertThat(merged.get(0).getId()).isEqualTo(like.getId());
+		assertThat(merged.get(0).getActorCount()).isEqualTo(3);
+		assertThat(merged.get(0).getLastActor().getId()).isEqualTo(last.getId());
+		assertThat(notificationService.getUnreadCount("notify_author").getUnreadCount()).isEqualTo(3);
+		assertThat(notificationService.getUnreadCount("notify_a").getUnreadCount()).isZero();
+
+		// An actor who comes back in a later window is not counted again
+		postService.unlikePost(post.getId(), "notify_a");
+		postService.likePost(post.getId(), "notify_a");
+		notificationBuffer.flush();
+		assertThat(find(unread("notify_author"), Notification.Type.LIKE).getActorCount()).isEqualTo(3);
+	}
+
+	@Test
+	void recipientsHaveOneUnreadNotificationPerTarget() {
+		User author = createUser(userRepository, "notify_unique");
+		createUser(userRepository, "notify_racer");
+		Post post = createPost(author);
+		postService.likePost(post.getId(), "notify_racer");
+		notificationBuffer.flush();
+		NotificationDTO like = find(unread("notify_unique"), Notification.Type.LIKE);
+
+		// What a second instance flushing the same target would try to write
+		String duplicate = "INSERT INTO notifications (id, recipient_id, type, target_id, last_actor_id, actor_count, "
+				+ "is_read, created_at, updated_at) VALUES (?, ?, 'LIKE', ?, ?, 1, ?, NOW(), NOW())";
+		assertThatThrownBy(() -> jdbcTemplate.update(duplicate, like.getId() + 1, author.getId(), post.getId(), author.getId(), false))
+				.isInstanceOf(DuplicateKeyException.class);
+
+		// Read notifications are history and may repeat
+		notificationService.markRead("notify_unique", null);
+		jdbcTemplate.update(duplicate, like.getId() + 1, author.getId(), post.getId(), author.getId(), true);
+	}
+
+	@Test
+	void readingAndDeletingMoveTheUnreadCount() {
+		User author = createUser(userRepository, "notify_reader");
+		createUser(userRepository, "notify_fan");
+		createUser(userRepository, "notify_late");
+		Post post = createPost(author);
+		postService.likePost(post.getId(), "notify_fan");
+		commentService.createComment(post.getId(), comment(), "notify_fan");
+		notificationBuffer.flush();
+
+		NotificationDTO commentNotification = find(unread("notify_reader"), Notification.Type.COMMENT);
+		assertThat(notificationService.markRead("notify_reader", List.of(commentNotification.getId()))
+				.getUnreadCount()).isEqualTo(1);
+		assertThat(notificationService.markRead("notify_reader", null).getUnreadCount()).isZero();
+		assertThat(unread("notify_reader")).isEmpty();
+
+		// Read notifications are not merged into; a new one starts
+		postService.likePost(post.getId(), "notify_late");
+		notificationBuffer.flush();
+		assertThat(find(unread("notify_reader"), Notification.Type.LIKE).getActorCount()).isEqualTo(1);
+		assertThat(notificationService.getUnreadCount("notify_reader").getUnreadCount()).isEqualTo(1);
+
+		postService.deletePost(post.getId(), "notify_reader");
+		assertThat(unread("notify_reader")).isEmpty();
+		assertThat(notificationService.getUnreadCount("notify_reader").getUnreadCount()).isZero();
+	}
+
+	private List<NotificationDTO> unread(String username) {
+		CursorPage<NotificationDTO> page = notificationService.getUnread(username, null, 20);
+		return page.getContent();
+	}
+
+	private static NotificationDTO find(List<NotificationDTO> notifications, Notification.Type type) {
+		return notifications.stream().filter(notification -> notification.getType() == type).findFirst().orElseThrow();
+	}
+
+	private static CommentRequest comment() {
+		CommentRequest request = new CommentRequest();
+		request.setContent("noted");
+		return request;
+	}
+
+	private Post createPost(User author) {
+		Post post = new Post();
+		post.setContent("notify me");
+		post.setUser(author);
+		return postRepository.save(post);
+	}
+}
@@ -0,0 +1,96 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.LikeBatchResultDTO;
+import com.example.socialmedia.dto.LikeMutationRequest;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.exception.BadRequestException;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.LikeRepository;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class PostBatchTests {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private LikeBuffer likeBuffer;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private LikeRepository likeRepository;
+
+	@Test
+	void batchGetKeepsOrderAndSkipsMissingAndPrivatePosts() {
+		User author = createUser(userRepository, "batch_author");
+		createUser(userRepository, "batch_reader");
+		Post first = createPost(author, Post.PrivacyLevel.PUBLIC);
+		Post hidden = createPost(author, Post.PrivacyLevel.PRIVATE);
+		Post second = createPost(author, Post.PrivacyLevel.PUBLIC);
+
+		List<PostDTO> posts = postService.getPostsByIds(
+				List.of(second.getId(), hidden.getId(), -1L, first.getId(), second.getId()), "batch_reader");
+
+		assertThat(posts).extracting(PostDTO::getId).containsExactly(second.getId(), first.getId());
+		assertThatThrownBy(() -> postService.getPostsByIds(LongStream.rangeClosed(1, 101).boxed().toList(), "batch_reader"))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	@Test
+	void batchLikesReportEachItem() {
+		User author = createUser(userRepository, "batch_liked");
+		User liker = createUser(userRepository, "batch_liker");
+		Post open = createPost(author, Post.PrivacyLevel.PUBLIC);
+		Post hidden = createPost(author, Post.PrivacyLevel.PRIVATE);
+
+		List<LikeBatchResultDTO> results = postService.applyLikes(
+				List.of(like(open.getId(), true), like(hidden.getId(), true), like(-1L, true)), "batch_liker");
+
+		assertThat(results).extracting(LikeBatchResultDTO::getStatus).containsExactly(200, 401, 404);
+		assertThat(results.get(0).getLikesCount()).isEqualTo(1);
+		likeBuffer.flush();
+		assertThat(likeRepository.existsByUserIdAndPostId(liker.getId(), open.getId())).isTrue();
+		assertThat(likeRepository.existsByUserIdAndPostId(liker.getId(), hidden.getId())).isFalse();
+
+		// Already persisted likes are recognised, so repeating the batch changes nothing
+		assertThat(postService.applyLikes(List.of(like(open.getId(), true)), "batch_liker").get(0).getLikesCount())
+				.isEqualTo(1);
+		assertThat(postService.applyLikes(List.of(like(open.getId(), false)), "batch_liker").get(0).getLikesCount())
+				.isZero();
+		likeBuffer.flush();
+		assertThat(likeRepository.existsByUserIdAndPostId(liker.getId(), open.getId())).isFalse();
+	}
+
+	private static LikeMutationRequest like(Long postId, boolean liked) {
+		LikeMutationRequest request = new LikeMutationRequest();
+		request.setPostId(postId);
+		request.setLiked(liked);
+		return request;
+	}
+
+	private Post createPost(User author, Post.PrivacyLevel privacyLevel) {
+		Post post = new Post();
+		post.setContent("batch");
+		post.setUser(author);
+		post.setPrivacyLevel(privacyLevel);
+		return postRepository.save(post);
+	}
+}
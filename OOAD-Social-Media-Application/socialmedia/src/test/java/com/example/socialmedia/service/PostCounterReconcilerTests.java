@@ -0,0 +1,87 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CommentRequest;
+import com.example.socialmedia.dto.LikeStatusDTO;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class PostCounterReconcilerTests {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private PostCounterReconciler reconciler;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void likesAndCommentsMaintainCounters() {
+		Post post = createPost("counters");
+
+		LikeStatusDTO liked = postService.likePost(post.getId(), "counters");
+		CommentRequest commentRequest = new CommentRequest();
+		commentRequest.setContent("first");
+		commentService.createComment(post.getId(), commentRequest, "counters");
+
+		assertThat(liked.getLikesCount()).isEqualTo(1);
+		assertThat(postRepository.findById(post.getId())).get()
+				.satisfies(p -> assertThat(p.getCommentsCount()).isEqualTo(1));
+
+		LikeStatusDTO unliked = postService.unlikePost(post.getId(), "counters");
+		assertThat(unliked.getLikesCount()).isZero();
+	}
+
+	@Test
+	void reconcileRepairsDriftedCounters() {
+		Post post = createPost("drift");
+		postService.likePost(post.getId(), "drift");
+
+		entityManager.createNativeQuery("UPDATE posts SET likes_count = 7, comments_count = 3 WHERE id = :id")
+				.setParameter("id", post.getId())
+				.executeUpdate();
+		entityManager.clear();
+
+		assertThat(reconciler.reconcile()).isEqualTo(1);
+		entityManager.clear();
+
+		Post repaired = postRepository.findById(post.getId()).orElseThrow();
+		assertThat(repaired.getLikesCount()).isEqualTo(1);
+		assertThat(repaired.getCommentsCount()).isZero();
+		assertThat(reconciler.reconcile()).isZero();
+	}
+
+	private Post createPost(String username) {
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@example.com");
+		user.setPassword("secret");
+		userRepository.save(user);
+
+		Post post = new Post();
+		post.setContent("hello");
+		post.setUser(user);
+		return postRepository.save(post);
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CommentDTO;
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.model.Comment;
+import com.example.socialmedia.model.Like;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.CommentRepository;
+import com.example.socialmedia.repository.LikeRepository;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import com.example.socialmedia.security.UserIdentityCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class PostServiceQueryCountTests {
+
+	private static final int POST_COUNT = 40;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private LikeRepository likeRepository;
+
+	@Autowired
+	private CommentRepository commentRepository;
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void setUp() {
+		User user = new User();
+		user.setUsername("querycount");
+		user.setEmail("querycount@example.com");
+		user.setPassword("secret");
+		userRepository.save(user);
+
+		for (int i = 0; i < POST_COUNT; i++) {
+			User author = new User();
+			author.setUsername("author" + i);
+			author.setEmail("author" + i + "@example.com");
+			author.setPassword("secret");
+			userRepository.save(author);
+
+			Post post = new Post();
+			post.setContent("post " + i);
+			post.setUser(author);
+			post.setMediaUrls(new HashSet<>(Set.of("https://example.com/" + i + ".jpg")));
+			post.setLikesCount(1);
+			post.setCommentsCount(1);
+			postRepository.save(post);
+
+			Like like = new Like();
+			like.setUser(user);
+			like.setPost(post);
+			likeRepository.save(like);
+
+			Comment comment = new Comment();
+			comment.setContent("comment " + i);
+			comment.setUser(author);
+			comment.setPost(post);
+			commentRepository.save(comment);
+		}
+	}
+
+	@Test
+	void feedQueryCountDoesNotGrowWithPageSize() {
+		long smallPage = countStatements(() -> postService.getFeed("querycount", null, 5, null), 5);
+		long largePage = countStatements(() -> postService.getFeed("querycount", null, POST_COUNT, null), POST_COUNT);
+
+		assertThat(largePage).isEqualTo(smallPage);
+	}
+
+	@Test
+	void commentPreviewsAddOneQueryForTheWholePage() {
+		long withoutPreviews = countStatements(() -> postService.getFeed("querycount", null, POST_COUNT, null), POST_COUNT);
+		long smallPage = countStatements(() -> postService.getFeed("querycount", null, 5, null, 2), 5);
+		long largePage = countStatements(() -> postService.getFeed("querycount", null, POST_COUNT, null, 2), POST_COUNT);
+
+		assertThat(largePage).isEqualTo(smallPage).isEqualTo(withoutPreviews + 1);
+	}
+
+	@Test
+	void commentPreviewsAreTheNewestCommentsOfEachPost() {
+		PostDTO newest = postService.getFeed("querycount", null, 1, null).getContent().get(0);
+		Post post = postRepository.findById(newest.getId()).orElseThrow();
+		User commenter = userRepository.findByUsername("querycount").orElseThrow();
+		for (int i = 1; i <= 2; i++) {
+			Comment comment = new Comment();
+			comment.setContent("reply " + i);
+			comment.setUser(commenter);
+			comment.setPost(post);
+			comment.setCreatedAt(LocalDateTime.now().plusMinutes(i));
+			commentRepository.save(comment);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		CursorPage<PostDTO> page = postService.getFeed("querycount", null, 2, null, 2);
+
+		assertThat(page.getContent().get(0).getCommentPreviews())
+				.extracting(CommentDTO::getContent).containsExactly("reply 2", "reply 1");
+		assertThat(page.getContent().get(0).getCommentPreviews())
+				.allSatisfy(comment -> assertThat(comment.getUser().getUsername()).isEqualTo("querycount"));
+		assertThat(page.getContent().get(1).getCommentPreviews()).hasSize(1);
+	}
+
+	private long countStatements(Supplier<CursorPage<PostDTO>> feed, int expectedSize) {
+		entityManager.flush();
+		entityManager.clear();
+		userIdentityCache.invalidateAll();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		CursorPage<PostDTO> page = feed.get();
+
+		assertThat(page.getContent()).hasSize(expectedSize);
+		assertThat(page.getContent()).allSatisfy(post -> {
+			assertThat(post.getUser().getUsername()).isNotNull();
+			assertThat(post.getMediaUrls()).hasSize(1);
+			assertThat(post.getLikesCount()).isEqualTo(1);
+			assertThat(post.getCommentsCount()).isEqualTo(1);
+			assertThat(post.isLikedByCurrentUser()).isTrue();
+		});
+		return statistics.getPrepareStatementCount();
+	}
+}
@@ -0,0 +1,143 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.TimeOrderedIds;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not transactional: the engine reads followee batches on its own executor threads
+@SpringBootTest
+class PullFeedEngineTests {
+
+	private final TimeOrderedIds ids = TimeOrderedIds.forNode(0);
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private PullFeedEngine pullFeedEngine;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void pullFeedMergesFolloweesNewestFirstAcrossPages() {
+		User viewer = createUser(userRepository, "pull_viewer");
+		List<User> followees = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			followees.add(createUser(userRepository, "pull_followee" + i));
+			userService.followUser("pull_viewer", followees.get(i).getId());
+		}
+		User stranger = createUser(userRepository, "pull_stranger");
+
+		// Interleaved timestamps, with ties, so the merge and the id tie-breaker both matter
+		LocalDateTime base = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS);
+		List<Post> expected = new ArrayList<>();
+		for (int i = 0; i < 15; i++) {
+			User author = followees.get(i % 3);
+			expected.add(createPost(author, Post.PrivacyLevel.values()[i % 2], base.minusMinutes(i / 2)));
+		}
+		expected.add(createPost(viewer, Post.PrivacyLevel.PRIVATE, base.minusMinutes(3)));
+		createPost(followees.get(0), Post.PrivacyLevel.PRIVATE, base.minusMinutes(1));
+		createPost(stranger, Post.PrivacyLevel.FRIENDS, base.minusMinutes(1));
+		expected.sort(Comparator.comparing(Post::getCreatedAt).thenComparing(Post::getId).reversed());
+
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		CursorPage<PostDTO> page;
+		do {
+			page = postService.getFeed("pull_viewer", cursor, 4, FeedMode.PULL);
+			page.getContent().forEach(post -> seen.add(post.getId()));
+			cursor = page.getNextCursor();
+		} while (!page.isLast());
+
+		assertThat(seen).containsExactlyElementsOf(expected.stream().map(Post::getId).toList());
+	}
+
+	// Run with -Dbenchmarks=true
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void compareMergeAgainstSingleFeedQuery() {
+		for (int followeeCount : new int[] {100, 1_000, 10_000}) {
+			User viewer = createUser(userRepository, "pull_bench_" + followeeCount);
+			List<Long> followeeIds = seedFollowees(viewer.getId(), followeeCount, 20);
+
+			for (int i = 0; i < 5; i++) {
+				pullFeedEngine.merge(viewer.getId(), followeeIds, null, 21);
+			}
+			long start = System.nanoTime();
+			for (int i = 0; i < 20; i++) {
+				pullFeedEngine.merge(viewer.getId(), followeeIds, null, 21);
+			}
+			long mergeMicros = (System.nanoTime() - start) / 20_000;
+
+			User managed = userRepository.findById(viewer.getId()).orElseThrow();
+			start = System.nanoTime();
+			for (int i = 0; i < 20; i++) {
+				postRepository.findFeedPosts(managed, new HashSet<>(userRepository.findAllById(followeeIds)),
+						PageRequest.of(0, 20)).getContent();
+			}
+			long queryMicros = (System.nanoTime() - start) / 20_000;
+
+			System.out.println("Pull feed with " + followeeCount + " followees: merge " + mergeMicros
+					+ "us, findFeedPosts " + queryMicros + "us per page");
+		}
+	}
+
+	private List<Long> seedFollowees(Long viewerId, int followeeCount, int postsPerFollowee) {
+		List<Long> followeeIds = new ArrayList<>(followeeCount);
+		LocalDateTime base = LocalDateTime.now().minusDays(1);
+		for (int i = 0; i < followeeCount; i++) {
+			String username = "pull_bench_" + viewerId + "_" + i;
+			Long followeeId = ids.next();
+			jdbcTemplate.update("INSERT INTO users (id, username, email, password, created_at, login_attempts, locked, "
+					+ "followers_count, following_count) VALUES (?, ?, ?, ?, ?, 0, FALSE, 0, 0)", followeeId, username, username + "@example.com", "secret", base);
+			jdbcTemplate.update("INSERT INTO follows (follower_id, followee_id, created_at) VALUES (?, ?, ?)", viewerId, followeeId, base);
+			List<Object[]> posts = new ArrayList<>(postsPerFollowee);
+			for (int j = 0; j < postsPerFollowee; j++) {
+				posts.add(new Object[] {ids.next(), "bench " + j, followeeId, "PUBLIC", base.minusMinutes((long) j * followeeCount + i)});
+			}
+			jdbcTemplate.batchUpdate("INSERT INTO posts (id, content, user_id, privacy_level, created_at, likes_count, comments_count, "
+					+ "media_status) VALUES (?, ?, ?, ?, ?, 0, 0, 'READY')", posts);
+			followeeIds.add(followeeId);
+		}
+		return followeeIds;
+	}
+
+	private Post createPost(User author, Post.PrivacyLevel privacyLevel, LocalDateTime createdAt) {
+		Post post = new Post();
+		post.setContent("pull post");
+		post.setUser(author);
+		post.setPrivacyLevel(privacyLevel);
+		post.setCreatedAt(createdAt);
+		return postRepository.save(post);
+	}
+}
@@ -0,0 +1,131 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.MediaVariantDTO;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.PostRequest;
+import com.example.socialmedia.model.MediaVariant;
+import com.example.socialmedia.repository.MediaVariantRepository;
+import com.example.socialmedia.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.socialmedia.TestSupport.awaitTrue;
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RenditionServiceTests {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private LocalMediaStore mediaStore;
+
+	@Autowired
+	private RenditionService renditionService;
+
+	@Autowired
+	private MediaVariantRepository mediaVariantRepository;
+
+	@Test
+	void uploadedImagesGetSmallerRenditionsWithDimensions() throws Exception {
+		createUser(userRepository, "renderer");
+
+		PostRequest request = new PostRequest();
+		request.setContent("wide photo");
+		request.setMediaUrls(Set.of("data:image/png;base64," + Base64.getEncoder().encodeToString(png(2000, 1000))));
+		request.setDeferMedia(false);
+		PostDTO post = postService.createPost("renderer", request);
+		String original = post.getMediaUrls().iterator().next();
+
+		awaitTrue(() -> postService.getPostById(post.getId(), "renderer").getMediaVariants().size() == 4);
+		List<MediaVariantDTO> variants = postService.getPostById(post.getId(), "renderer").getMediaVariants();
+
+		assertThat(variants).extracting(MediaVariantDTO::getOriginalUrl).containsOnly(original);
+		assertThat(variants).extracting(MediaVariantDTO::getWidth).containsExactly(320, 640, 1280, 2000);
+		assertThat(variants).extracting(MediaVariantDTO::getHeight).containsExactly(160, 320, 640, 1000);
+		assertThat(variants.get(3).getUrl()).isEqualTo(original);
+		assertThat(meterRegistry.find("media.renditions.queue").gauge()).isNotNull();
+
+		// Deleting the post removes the rendition blobs with their rows
+		postService.deletePost(post.getId(), "renderer");
+		awaitTrue(() -> variants.stream().noneMatch(variant -> stored(variant.getUrl())));
+	}
+
+	@Test
+	void originalsWithoutRenditionsAreDeletedWithThePost() throws Exception {
+		createUser(userRepository, "webp_poster");
+		PostRequest request = new PostRequest();
+		request.setContent("a format the renderer cannot read");
+		request.setMediaUrls(Set.of("data:image/webp;base64," + Base64.getEncoder().encodeToString(
+				"RIFF\0\0\0\0WEBPVP8 not really".getBytes(StandardCharsets.US_ASCII))));
+		request.setDeferMedia(false);
+		PostDTO post = postService.createPost("webp_poster", request);
+		String original = post.getMediaUrls().iterator().next();
+		assertThat(stored(original)).isTrue();
+
+		postService.deletePost(post.getId(), "webp_poster");
+		awaitTrue(() -> !stored(original));
+	}
+
+	@Test
+	void renditionsFinishingAfterTheDeleteAreDropped() throws Exception {
+		createUser(userRepository, "late_renderer");
+		PostRequest request = new PostRequest();
+		request.setContent("deleted while rendering");
+		request.setMediaUrls(Set.of("data:image/png;base64," + Base64.getEncoder().encodeToString(png(1500, 700))));
+		request.setDeferMedia(false);
+		PostDTO post = postService.createPost("late_renderer", request);
+		String original = post.getMediaUrls().iterator().next();
+		awaitTrue(() -> !mediaVariantRepository.findByPostIds(List.of(post.getId())).isEmpty());
+		List<String> renditions = mediaVariantRepository.findByPostIds(List.of(post.getId())).stream()
+				.map(MediaVariant::getUrl).filter(url -> !url.equals(original)).toList();
+		postService.deletePost(post.getId(), "late_renderer");
+		awaitTrue(() -> renditions.stream().noneMatch(this::stored));
+
+		// The original's blob is still readable while the render runs, as in a render already in progress
+		byte[] content = png(1500, 700);
+		String reuploaded = mediaStore.store(new ByteArrayInputStream(content), "image/png");
+		renditionService.render(post.getId(), reuploaded);
+
+		assertThat(mediaVariantRepository.findByPostIds(List.of(post.getId()))).isEmpty();
+		assertThat(renditions).noneMatch(this::stored);
+		assertThat(stored(reuploaded)).isFalse();
+	}
+
+	private boolean stored(String url) {
+		return mediaStore.resolve(url.substring(url.lastIndexOf('/') + 1)).isPresent();
+	}
+
+	private static byte[] png(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.ORANGE);
+		graphics.fillRect(0, 0, width / 2, height);
+		graphics.dispose();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.PostRequest;
+import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.FollowRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class SearchServiceTests {
+
+	@Autowired
+	private SearchService searchService;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@MockitoSpyBean
+	private FollowRepository followRepository;
+
+	@Test
+	void postSearchRanksMatchesAndRespectsPrivacy() {
+		User author = createUser(userRepository, "search_author", null);
+		createUser(userRepository, "search_follower", null);
+		createUser(userRepository, "search_stranger", null);
+		userService.followUser("search_follower", author.getId());
+
+		PostDTO strong = createPost("Kingfisher kingfisher at the lake", Post.PrivacyLevel.PUBLIC);
+		PostDTO weak = createPost("A kingfisher flew past the lake", Post.PrivacyLevel.PUBLIC);
+		PostDTO friends = createPost("Kingfisher nest, friends only", Post.PrivacyLevel.FRIENDS);
+		createPost("Kingfisher diary", Post.PrivacyLevel.PRIVATE);
+
+		assertThat(postIds("search_stranger", "kingfisher lake")).containsExactly(strong.getId(), weak.getId());
+		assertThat(postIds("search_stranger", "KINGF")).containsExactlyInAnyOrder(strong.getId(), weak.getId());
+		assertThat(postIds("search_follower", "kingfisher nest")).containsExactly(friends.getId());
+		assertThat(postIds("search_author", "kingfisher")).hasSize(4);
+
+		postService.deletePost(weak.getId(), "search_author");
+		assertThat(postIds("search_stranger", "kingfisher")).containsExactly(strong.getId());
+
+		searchService.rebuild();
+		assertThat(postIds("search_follower", "kingfisher")).containsExactlyInAnyOrder(strong.getId(), friends.getId());
+	}
+
+	@Test
+	void pagesWalkEveryHitOnce() {
+		createUser(userRepository, "search_pager", null);
+		List<Long> created = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			PostRequest request = new PostRequest();
+			request.setContent("heron " + "heron ".repeat(i % 3) + i);
+			request.setPrivacyLevel(Post.PrivacyLevel.PUBLIC);
+			created.add(postService.createPost("search_pager", request).getId());
+		}
+
+		List<Long> seen = new ArrayList<>();
+		CursorPage<PostDTO> page = searchService.searchPosts("search_pager", "heron", null, 3);
+		page.getContent().forEach(post -> seen.add(post.getId()));
+		// New matches change every idf; later pages must still continue where the first one stopped
+		for (int i = 0; i < 5; i++) {
+			PostRequest request = new PostRequest();
+			request.setContent("another heron");
+			request.setPrivacyLevel(Post.PrivacyLevel.PUBLIC);
+			postService.createPost("search_pager", request);
+		}
+		while (!page.isLast()) {
+			page = searchService.searchPosts("search_pager", "heron", page.getNextCursor(), 3);
+			page.getContent().forEach(post -> seen.add(post.getId()));
+		}
+
+		assertThat(seen).doesNotHaveDuplicates().containsAll(created);
+	}
+
+	@Test
+	void friendsOnlyMatchesCostOneFollowQueryPerSearch() {
+		User viewer = createUser(userRepository, "search_circle", null);
+		List<Long> visible = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			User author = createUser(userRepository, "search_circle_author" + i, null);
+			PostRequest request = new PostRequest();
+			request.setContent("cormorant colony " + i);
+			request.setPrivacyLevel(Post.PrivacyLevel.FRIENDS);
+			Long postId = postService.createPost(author.getUsername(), request).getId();
+			if (i < 2) {
+				userService.followUser("search_circle", author.getId());
+				visible.add(postId);
+			}
+		}
+
+		clearInvocations(followRepository);
+		assertThat(postIds("search_circle", "cormorant")).containsExactlyInAnyOrderElementsOf(visible);
+		verify(followRepository).findFolloweeIds(viewer.getId());
+		verify(followRepository, never()).existsByFollowerIdAndFolloweeId(eq(viewer.getId()), any());
+	}
+
+	@Test
+	void shortPrefixesKeepTheMostFrequentExpansions() {
+		InvertedIndex<Void> index = new InvertedIndex<>();
+		for (long id = 1; id <= 70; id++) {
+			index.put(id, InvertedIndex.tokenize("zz" + id), null);
+		}
+		for (long id = 100; id < 105; id++) {
+			index.put(id, InvertedIndex.tokenize("zzcommon"), null);
+		}
+
+		List<InvertedIndex.Hit> hits = index.search(List.of("zz"), true, meta -> true, null, 100);
+		assertThat(hits).extracting(InvertedIndex.Hit::id).contains(100L, 101L, 102L, 103L, 104L);
+	}
+
+	@Test
+	void userSearchMatchesNamesAndBios() {
+		User birder = createUser(userRepository, "search_birdwatcher", "Spotting warblers every weekend");
+		assertThat(userIds("search_birdw")).containsExactly(birder.getId());
+		assertThat(userIds("warblers ")).containsExactly(birder.getId());
+
+		birder.setBio("Now into moths");
+		userRepository.save(birder);
+		assertThat(userIds("warblers ")).isEmpty();
+		assertThat(userIds("moths")).containsExactly(birder.getId());
+	}
+
+	private PostDTO createPost(String content, Post.PrivacyLevel privacyLevel) {
+		PostRequest request = new PostRequest();
+		request.setContent(content);
+		request.setPrivacyLevel(privacyLevel);
+		return postService.createPost("search_author", request);
+	}
+
+	private List<Long> postIds(String username, String query) {
+		return searchService.searchPosts(username, query, null, 50).getContent().stream().map(PostDTO::getId).toList();
+	}
+
+	private List<Long> userIds(String query) {
+		return searchService.searchUsers(query, null, 50).getContent().stream().map(UserDTO::getId).toList();
+	}
+}
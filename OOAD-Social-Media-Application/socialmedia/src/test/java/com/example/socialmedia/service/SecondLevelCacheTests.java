@@ -0,0 +1,143 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.config.ReadOnlyCacheModeJpaDialect;
+import com.example.socialmedia.dto.CommentRequest;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.PostRepository;
+import com.example.socialmedia.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTests {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Statistics statistics;
+
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Test
+	void repeatedReadsAreServedFromTheCache() {
+		Post post = createPost(createUser(userRepository, "l2_reader"));
+		readMediaUrls(post);
+
+		statistics.clear();
+		Set<String> mediaUrls = readMediaUrls(post);
+
+		assertThat(mediaUrls).containsExactly("https://example.com/l2.jpg");
+		for (String region : new String[]{"posts", "post-media-urls"}) {
+			assertThat(statistics.getDomainDataRegionStatistics(region).getHitCount()).isPositive();
+			assertThat(statistics.getDomainDataRegionStatistics(region).getMissCount()).isZero();
+		}
+	}
+
+	@Test
+	void counterUpdatesEvictOnlyTheRowsTheyChange() {
+		User author = createUser(userRepository, "l2_author");
+		User follower = createUser(userRepository, "l2_follower");
+		User bystander = createUser(userRepository, "l2_bystander");
+		Post post = createPost(author);
+		Post other = createPost(author);
+		postRepository.findById(post.getId()).orElseThrow();
+		postRepository.findById(other.getId()).orElseThrow();
+		userRepository.findById(author.getId()).orElseThrow();
+		userRepository.findById(bystander.getId()).orElseThrow();
+
+		CommentRequest request = new CommentRequest();
+		request.setContent("cached?");
+		commentService.createComment(post.getId(), request, "l2_follower");
+		userService.followUser("l2_follower", author.getId());
+
+		assertThat(postRepository.findById(post.getId()).orElseThrow().getCommentsCount()).isEqualTo(1);
+		assertThat(userRepository.findById(author.getId()).orElseThrow().getFollowersCount()).isEqualTo(1);
+		assertThat(userRepository.findById(follower.getId()).orElseThrow().getFollowingCount()).isEqualTo(1);
+		assertThat(entityManagerFactory.getCache().contains(Post.class, other.getId())).isTrue();
+		assertThat(entityManagerFactory.getCache().contains(User.class, bystander.getId())).isTrue();
+	}
+
+	@Test
+	void deletedPostsLeaveTheCache() {
+		createUser(userRepository, "l2_deleter");
+		Post post = createPost(userRepository.findByUsername("l2_deleter").orElseThrow());
+		postRepository.findById(post.getId()).orElseThrow();
+		assertThat(entityManagerFactory.getCache().contains(Post.class, post.getId())).isTrue();
+
+		postService.deletePost(post.getId(), "l2_deleter");
+
+		// READ_WRITE regions keep a soft lock in place of the entry, so check that reads miss
+		statistics.clear();
+		assertThat(postRepository.findById(post.getId())).isEmpty();
+		assertThat(statistics.getDomainDataRegionStatistics("posts").getHitCount()).isZero();
+	}
+
+	// With replicas, read-only transactions may see a lagging copy, so they read the cache but never fill it
+	@Test
+	void readOnlyTransactionsOnReplicasDoNotFillTheCache() {
+		Post post = createPost(createUser(userRepository, "l2_replica_reader"));
+		JpaTransactionManager replicaAware = new JpaTransactionManager(entityManagerFactory);
+		replicaAware.setJpaDialect(new ReadOnlyCacheModeJpaDialect());
+		TransactionTemplate readOnly = new TransactionTemplate(replicaAware);
+		readOnly.setReadOnly(true);
+		entityManagerFactory.getCache().evict(Post.class, post.getId());
+
+		readOnly.executeWithoutResult(status -> postRepository.findById(post.getId()).orElseThrow());
+		assertThat(entityManagerFactory.getCache().contains(Post.class, post.getId())).isFalse();
+
+		new TransactionTemplate(replicaAware).executeWithoutResult(status -> postRepository.findById(post.getId()).orElseThrow());
+		assertThat(entityManagerFactory.getCache().contains(Post.class, post.getId())).isTrue();
+	}
+
+	private Set<String> readMediaUrls(Post post) {
+		return transactionTemplate.execute(status ->
+				Set.copyOf(postRepository.findById(post.getId()).orElseThrow().getMediaUrls()));
+	}
+
+	private Post createPost(User author) {
+		Post post = new Post();
+		post.setContent("cache me");
+		post.setUser(author);
+		post.setMediaUrls(new HashSet<>(Set.of("https://example.com/l2.jpg")));
+		return postRepository.save(post);
+	}
+}
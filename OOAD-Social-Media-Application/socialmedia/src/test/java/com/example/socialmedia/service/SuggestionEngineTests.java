@@ -0,0 +1,101 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.SuggestionDTO;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class SuggestionEngineTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void suggestsSecondDegreeAccountsByMutualCount() {
+		User viewer = createUser(userRepository, "pymk_viewer");
+		User alice = createUser(userRepository, "pymk_alice");
+		User bob = createUser(userRepository, "pymk_bob");
+		User xavier = createUser(userRepository, "pymk_xavier");
+		User yolanda = createUser(userRepository, "pymk_yolanda");
+
+		userService.followUser("pymk_viewer", alice.getId());
+		userService.followUser("pymk_viewer", bob.getId());
+		userService.followUser("pymk_alice", xavier.getId());
+		userService.followUser("pymk_alice", yolanda.getId());
+		userService.followUser("pymk_bob", xavier.getId());
+		userService.followUser("pymk_bob", viewer.getId());
+
+		assertThat(userService.getSuggestions("pymk_viewer", 10))
+				.extracting(suggestion -> suggestion.getUser().getId(), SuggestionDTO::getMutualCount)
+				.containsExactly(tuple(xavier.getId(), 2),
+						tuple(yolanda.getId(), 1));
+
+		// Following a suggestion drops the cached result
+		userService.followUser("pymk_viewer", xavier.getId());
+		assertThat(userService.getSuggestions("pymk_viewer", 10))
+				.extracting(suggestion -> suggestion.getUser().getId())
+				.containsExactly(yolanda.getId());
+	}
+
+	// Run with -Dbenchmarks=true
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void scoreSuggestionsOnPowerLawGraph() {
+		// 1M users; out-degrees follow a Pareto tail and followees are drawn towards popular (low) ids
+		int users = 1_000_000;
+		Random random = new Random(7);
+		FollowGraphIndex.Builder builder = new FollowGraphIndex.Builder();
+		for (long follower = 1; follower <= users; follower++) {
+			int degree = (int) Math.min(2_000, 3 / Math.pow(1 - random.nextDouble(), 1 / 1.5));
+			long[] followees = new long[degree];
+			for (int i = 0; i < degree; i++) {
+				followees[i] = 1 + (long) (users * Math.pow(random.nextDouble(), 2.5));
+			}
+			for (long followee : Arrays.stream(followees).distinct().sorted().toArray()) {
+				builder.add(follower, followee);
+			}
+		}
+		FollowGraphIndex index = new FollowGraphIndex(null, null, new SimpleMeterRegistry(), 50_000);
+		index.replaceWith(builder.build());
+
+		for (int parallelism : IntStream.of(1, Runtime.getRuntime().availableProcessors()).distinct().toArray()) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			SuggestionEngine engine = new SuggestionEngine(index, pool, new SimpleMeterRegistry(),
+					200_000, 5_000, 50, 1, 1);
+			for (int i = 0; i < 500; i++) {
+				long userId = 1 + random.nextInt(users);
+				engine.score(userId, index.following(userId), 50);
+			}
+			int requests = 2_000;
+			long[] micros = new long[requests];
+			for (int i = 0; i < requests; i++) {
+				long userId = 1 + random.nextInt(users);
+				long start = System.nanoTime();
+				engine.score(userId, index.following(userId), 50);
+				micros[i] = (System.nanoTime() - start) / 1_000;
+			}
+			pool.shutdown();
+			Arrays.sort(micros);
+			System.out.println("Suggestions on " + index.edgeCount() + " edges with parallelism " + parallelism
+					+ ": p50 " + micros[requests / 2] + "us, p99 " + micros[requests * 99 / 100] + "us, max "
+					+ micros[requests - 1] + "us");
+		}
+	}
+}
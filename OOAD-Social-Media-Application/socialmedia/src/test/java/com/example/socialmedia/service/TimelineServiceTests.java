@@ -0,0 +1,121 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.dto.PostDTO;
+import com.example.socialmedia.dto.PostRequest;
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.TimelineRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.List;
+
+import static com.example.socialmedia.TestSupport.awaitTrue;
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest
+class TimelineServiceTests {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TimelineRepository timelineRepository;
+
+	@MockitoSpyBean
+	private TimelineService timelineService;
+
+	@Test
+	void postsFanOutToFollowersAndRespectPrivacy() throws InterruptedException {
+		User author = createUser(userRepository, "tl_author");
+		User follower = createUser(userRepository, "tl_follower");
+		userService.followUser("tl_follower", author.getId());
+		userService.followUser("tl_author", follower.getId());
+
+		PostDTO publicPost = postService.createPost("tl_author", postRequest("hello followers", Post.PrivacyLevel.PUBLIC));
+		PostDTO privatePost = postService.createPost("tl_author", postRequest("just me", Post.PrivacyLevel.PRIVATE));
+
+		awaitTrue(() -> feedIds("tl_follower").contains(publicPost.getId()));
+		awaitTrue(() -> feedIds("tl_author").contains(privatePost.getId()));
+		assertThat(feedIds("tl_follower")).doesNotContain(privatePost.getId());
+
+		postService.deletePost(publicPost.getId(), "tl_author");
+		awaitTrue(() -> !feedIds("tl_follower").contains(publicPost.getId()));
+	}
+
+	@Test
+	void followBackfillsAndUnfollowRetracts() throws InterruptedException {
+		User author = createUser(userRepository, "tl_backfill_author");
+		createUser(userRepository, "tl_backfill_follower");
+		PostDTO earlier = postService.createPost("tl_backfill_author", postRequest("before the follow", Post.PrivacyLevel.FRIENDS));
+
+		userService.followUser("tl_backfill_follower", author.getId());
+		awaitTrue(() -> feedIds("tl_backfill_follower").contains(earlier.getId()));
+
+		userService.unfollowUser("tl_backfill_follower", author.getId());
+		awaitTrue(() -> !feedIds("tl_backfill_follower").contains(earlier.getId()));
+	}
+
+	@Test
+	void lateFollowEventsDoNotUndoTheCurrentFollowState() {
+		User author = createUser(userRepository, "tl_late_author");
+		User follower = createUser(userRepository, "tl_late_follower");
+		postService.createPost("tl_late_author", postRequest("followed late", Post.PrivacyLevel.PUBLIC));
+
+		// A backfill handled after the unfollow and a retraction handled after the refollow change nothing
+		assertThat(timelineRepository.backfill(follower.getId(), author.getId(), 50)).isZero();
+		userService.followUser("tl_late_follower", author.getId());
+		assertThat(timelineRepository.retractAuthor(follower.getId(), author.getId())).isZero();
+	}
+
+	@Test
+	void usersFollowingNobodyKeepTheFallbackAfterPosting() throws InterruptedException {
+		createUser(userRepository, "tl_loner_neighbour");
+		createUser(userRepository, "tl_loner");
+		PostDTO neighbours = postService.createPost("tl_loner_neighbour", postRequest("public news", Post.PrivacyLevel.PUBLIC));
+		PostDTO own = postService.createPost("tl_loner", postRequest("talking to myself", Post.PrivacyLevel.PUBLIC));
+
+		awaitTrue(() -> timelineService.hasTimeline(userRepository.findByUsername("tl_loner").orElseThrow().getId()));
+		assertThat(feedIds("tl_loner")).contains(neighbours.getId(), own.getId());
+	}
+
+	// A failed feed read rolls back before it is turned into an empty page, so the caller never sees
+	// UnexpectedRollbackException from a transaction that was marked rollback-only
+	@Test
+	void failedFeedReadsReturnAnEmptyPage() {
+		createUser(userRepository, "tl_unlucky_reader");
+		userService.followUser("tl_unlucky_reader", createUser(userRepository, "tl_unlucky_author").getId());
+		// A transactional call that fails inside the feed transaction marks it rollback-only
+		doAnswer(invocation -> userService.getUserProfile(-1L)).when(timelineService).getTimeline(any(), any(), anyInt());
+		try {
+			assertThat(postService.getFeed("tl_unlucky_reader", null, 10, null, 0).getContent()).isEmpty();
+		} finally {
+			reset(timelineService);
+		}
+	}
+
+	private List<Long> feedIds(String username) {
+		return postService.getFeed(username, null, 50, null).getContent().stream().map(PostDTO::getId).toList();
+	}
+
+	private PostRequest postRequest(String content, Post.PrivacyLevel privacyLevel) {
+		PostRequest request = new PostRequest();
+		request.setContent(content);
+		request.setPrivacyLevel(privacyLevel);
+		return request;
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.model.Post;
+import com.example.socialmedia.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrendingServiceTests {
+
+	private static final long BUCKET_MILLIS = 300_000;
+	private static final long NOW = 1_000_000 * BUCKET_MILLIS;
+
+	private final TrendingService trendingService = new TrendingService(new SimpleMeterRegistry(), 300, 12, 3, 10, 2);
+
+	@Test
+	void recentEngagementOutranksOlderTotals() {
+		Post older = post(1L, Post.PrivacyLevel.PUBLIC);
+		Post recent = post(2L, Post.PrivacyLevel.FRIENDS);
+		for (int i = 0; i < 10; i++) {
+			trendingService.record(older, 1, NOW - 10 * BUCKET_MILLIS);
+		}
+		for (int i = 0; i < 2; i++) {
+			trendingService.record(recent, 2, NOW);
+		}
+
+		trendingService.refresh(NOW);
+
+		assertThat(trendingService.snapshot()).extracting(TrendingService.TrendingPost::postId).containsExactly(2L, 1L);
+		assertThat(trendingService.snapshot().get(0).privacyLevel()).isEqualTo(Post.PrivacyLevel.FRIENDS);
+	}
+
+	@Test
+	void bucketsAgeOutOfTheWindow() {
+		Post post = post(3L, Post.PrivacyLevel.PUBLIC);
+		trendingService.record(post, 1, NOW);
+		trendingService.refresh(NOW + 11 * BUCKET_MILLIS);
+		assertThat(trendingService.snapshot()).hasSize(1);
+
+		// A record a full window later reuses the slot instead of adding to the stale count
+		trendingService.record(post, 1, NOW + 12 * BUCKET_MILLIS);
+		trendingService.refresh(NOW + 12 * BUCKET_MILLIS);
+		assertThat(trendingService.snapshot().get(0).score()).isEqualTo(1.0);
+
+		trendingService.refresh(NOW + 24 * BUCKET_MILLIS);
+		assertThat(trendingService.snapshot()).isEmpty();
+	}
+
+	@Test
+	void concurrentRecordsAreNotLost() throws InterruptedException {
+		Post post = post(4L, Post.PrivacyLevel.PUBLIC);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					trendingService.record(post, 1, NOW);
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		trendingService.refresh(NOW);
+		assertThat(trendingService.snapshot().get(0).score()).isEqualTo(80_000.0);
+	}
+
+	private Post post(Long id, Post.PrivacyLevel privacyLevel) {
+		User author = new User();
+		author.setId(100L + id);
+		Post post = new Post();
+		post.setId(id);
+		post.setUser(author);
+		post.setPrivacyLevel(privacyLevel);
+		return post;
+	}
+}
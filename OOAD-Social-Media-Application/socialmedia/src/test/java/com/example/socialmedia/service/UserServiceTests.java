@@ -0,0 +1,111 @@
+package com.example.socialmedia.service;
+
+import com.example.socialmedia.config.FollowGraphMigration;
+import com.example.socialmedia.dto.CursorPage;
+import com.example.socialmedia.dto.UserDTO;
+import com.example.socialmedia.exception.BadRequestException;
+import com.example.socialmedia.model.User;
+import com.example.socialmedia.repository.FollowRepository;
+import com.example.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.socialmedia.TestSupport.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class UserServiceTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private FollowRepository followRepository;
+
+	@Autowired
+	private FollowGraphMigration followGraphMigration;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void followIsIdempotentAndMaintainsCounters() {
+		User celebrity = createUser(userRepository, "fg_celebrity");
+		createUser(userRepository, "fg_fan");
+
+		userService.followUser("fg_fan", celebrity.getId());
+		userService.followUser("fg_fan", celebrity.getId());
+		assertThat(userService.getUserProfile(celebrity.getId()).getFollowersCount()).isEqualTo(1);
+		assertThat(userRepository.findByUsername("fg_fan").orElseThrow().getFollowingCount()).isEqualTo(1);
+
+		userService.unfollowUser("fg_fan", celebrity.getId());
+		userService.unfollowUser("fg_fan", celebrity.getId());
+		assertThat(userService.getUserProfile(celebrity.getId()).getFollowersCount()).isZero();
+		assertThat(userRepository.findByUsername("fg_fan").orElseThrow().getFollowingCount()).isZero();
+
+		assertThatThrownBy(() -> userService.followUser("fg_celebrity", celebrity.getId()))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	@Test
+	void followerPagesWalkEveryEdgeNewestFirst() {
+		User star = createUser(userRepository, "fg_star");
+		List<Long> followerIds = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			followerIds.add(createUser(userRepository, "fg_star_fan" + i).getId());
+			userService.followUser("fg_star_fan" + i, star.getId());
+		}
+
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		CursorPage<UserDTO> page;
+		do {
+			page = userService.getFollowers(star.getId(), cursor, 3);
+			page.getContent().forEach(user -> seen.add(user.getId()));
+			cursor = page.getNextCursor();
+		} while (!page.isLast());
+
+		assertThat(seen).containsExactlyInAnyOrderElementsOf(followerIds);
+		assertThat(userService.getFollowing(followerIds.get(0), null, 10).getContent())
+				.extracting(UserDTO::getId).containsExactly(star.getId());
+	}
+
+	@Test
+	void migrationCopiesLegacyEdgesAndRecounts() {
+		User followee = createUser(userRepository, "fg_legacy_followee");
+		User follower = createUser(userRepository, "fg_legacy_follower");
+		jdbcTemplate.execute("CREATE TABLE user_followers (user_id BIGINT NOT NULL, follower_id BIGINT NOT NULL)");
+		jdbcTemplate.update("INSERT INTO user_followers (user_id, follower_id) VALUES (?, ?)", followee.getId(), follower.getId());
+		try {
+			followGraphMigration.migrate();
+			followGraphMigration.migrate();
+
+			assertThat(followRepository.findFolloweeIds(follower.getId())).containsExactly(followee.getId());
+			assertThat(userService.getUserProfile(followee.getId()).getFollowersCount()).isEqualTo(1);
+			assertThat(userService.getUserProfile(follower.getId()).getFollowingCount()).isEqualTo(1);
+		} finally {
+			jdbcTemplate.execute("DROP TABLE IF EXISTS user_followers");
+			jdbcTemplate.execute("DROP TABLE IF EXISTS user_followers_migrated");
+		}
+	}
+
+	@Test
+	void followEdgesMustReferenceExistingUsers() {
+		User follower = createUser(userRepository, "fg_fk_follower");
+		followGraphMigration.addForeignKeys();
+
+		assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO follows (follower_id, followee_id, created_at) " +
+				"VALUES (?, ?, CURRENT_TIMESTAMP)", follower.getId(), -1L))
+				.isInstanceOf(DataIntegrityViolationException.class);
+	}
+}